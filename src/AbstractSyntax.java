@@ -2,6 +2,8 @@
 // exactly as it appears in Appendix B.
 
 import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
 
 class Indenter {
     public int level;
@@ -79,12 +81,29 @@ class Declaration {
 
 class Functions extends ArrayList<Function> {
     // Functions = Function*
+    // 이름 -> 함수 색인, 같은 이름이면 먼저 추가된 함수
+    private final HashMap<String, Function> index = new HashMap<>();
+
+    @Override
+    public boolean add(Function f) {
+        index.putIfAbsent(f.id, f);
+        return super.add(f);
+    }
+
+    @Override
+    public Function set(int i, Function f) {
+        Function old = super.set(i, f);
+        index.clear();
+        for (Function g : this)
+            index.putIfAbsent(g.id, g);
+        return old;
+    }
 
     public Function findFunction(String name) {
-        for (Function f : this)
-            if (f.id.equals(name))
-                return f;
-        throw new IllegalArgumentException("Function not found: " + name);
+        Function f = index.get(name);
+        if (f == null)
+            throw new IllegalArgumentException("Function not found: " + name);
+        return f;
     }
 
     public void display(int level) {
@@ -140,6 +159,7 @@ class Type {
     final static Type UNDEFINED = new Type("undef");
     final static Type UNUSED = new Type("unused");
 
+    // 타입은 위의 상수들만 존재하므로 동일성(==)으로 비교한다
     private final String id;
 
     Type(String t) {
@@ -150,21 +170,16 @@ class Type {
     public String toString() {
         return id;
     }
-
-    @Override
-    public boolean equals(Object obj) {
-        if (this == obj) return true;
-        if (obj == null || getClass() != obj.getClass()) return false;
-        return id.equals(((Type) obj).id);
-    }
 }
 
 class ProtoType extends Type {
     // 함수의 이름, 반환형, 파라미터만 정의해 몸체 없이 함수 식별 가능
+    Type result;
     Declarations params;
 
     ProtoType(Type returnType, Declarations p) {
         super(returnType.toString());
+        result = returnType;
         params = p;
     }
 
@@ -310,7 +325,7 @@ class Variable extends Expression {
     @Override
     public boolean equals(Object obj) {
         if (this == obj) return true;
-        if (obj == null || getClass() != obj.getClass()) return false;
+        if (!(obj instanceof Variable)) return false;
         return id.equals(((Variable) obj).id);
     }
 
@@ -327,18 +342,43 @@ class Variable extends Expression {
 
 }
 
-abstract class Value extends Expression implements Cloneable {
+class ResolvedVariable extends Variable {
+    // ResolvedVariable = Variable v; boolean global; int offset
+    // 전역변수면 전역 영역의 인덱스, 아니면 프레임(dlink) 기준 오프셋
+    final boolean global;
+    final int offset;
+
+    ResolvedVariable(Variable v, boolean global, int offset) {
+        super(v);
+        this.global = global;
+        this.offset = offset;
+    }
+
+    @Override
+    public void display(int level) {
+        Indenter i = new Indenter(level);
+        i.display("Variable: " + this + (global ? " (global " : " (local ") + offset + ")");
+    }
+}
+
+abstract class Value extends Expression {
     // Value = IntValue | BoolValue | CharValue | FloatValue | Undefined | Unused
-    protected Type type;
-    protected boolean undef = true;
+    // 값은 불변이므로 복사하지 않고 공유한다
+    protected final Type type;
+    protected final boolean undef;
+
+    Value(Type type, boolean undef) {
+        this.type = type;
+        this.undef = undef;
+    }
 
     static Value mkValue(Type type) {
-        if (type == Type.INT) return new IntValue();
-        if (type == Type.BOOL) return new BoolValue();
-        if (type == Type.CHAR) return new CharValue();
-        if (type == Type.FLOAT) return new FloatValue();
-        if (type == Type.UNDEFINED) return new UndefinedValue();
-        if (type == Type.UNUSED) return new UnusedValue();
+        if (type == Type.INT) return IntValue.UNDEF;
+        if (type == Type.BOOL) return BoolValue.UNDEF;
+        if (type == Type.CHAR) return CharValue.UNDEF;
+        if (type == Type.FLOAT) return FloatValue.UNDEF;
+        if (type == Type.UNDEFINED) return UndefinedValue.UNDEF;
+        if (type == Type.UNUSED) return UnusedValue.UNUSED;
         throw new IllegalArgumentException("Illegal type in mkValue");
     }
 
@@ -373,28 +413,34 @@ abstract class Value extends Expression implements Cloneable {
     Type type() {
         return type;
     }
-
-    @Override
-    public Value clone() {
-        try {
-            return (Value) super.clone();
-        } catch (CloneNotSupportedException e) {
-            throw new AssertionError();
-        }
-    }
 }
 
 class IntValue extends Value {
-    private int value = 0;
+    // -128..1023 범위의 정수는 미리 만들어 공유
+    final static IntValue UNDEF = new IntValue();
+    private final static IntValue[] cache = new IntValue[1024 + 128];
+
+    static {
+        for (int i = 0; i < cache.length; i++)
+            cache[i] = new IntValue(i - 128);
+    }
+
+    private final int value;
 
     IntValue() {
-        type = Type.INT;
+        super(Type.INT, true);
+        value = 0;
     }
 
     IntValue(int v) {
-        this();
+        super(Type.INT, false);
         value = v;
-        undef = false;
+    }
+
+    static IntValue of(int v) {
+        if (v >= -128 && v < cache.length - 128)
+            return cache[v + 128];
+        return new IntValue(v);
     }
 
     @Override
@@ -412,21 +458,29 @@ class IntValue extends Value {
     @Override
     public void display(int level) {
         Indenter i = new Indenter(level);
-        i.display("IntValue: " + value);
+        i.display("IntValue: " + this);
     }
 }
 
 class BoolValue extends Value {
-    private boolean value = false;
+    final static BoolValue TRUE = new BoolValue(true);
+    final static BoolValue FALSE = new BoolValue(false);
+    final static BoolValue UNDEF = new BoolValue();
+
+    private final boolean value;
 
-    BoolValue() {
-        type = Type.BOOL;
+    private BoolValue() {
+        super(Type.BOOL, true);
+        value = false;
     }
 
-    BoolValue(boolean v) {
-        this();
+    private BoolValue(boolean v) {
+        super(Type.BOOL, false);
         value = v;
-        undef = false;
+    }
+
+    static BoolValue of(boolean v) {
+        return v ? TRUE : FALSE;
     }
 
     @Override
@@ -450,21 +504,34 @@ class BoolValue extends Value {
     @Override
     public void display(int level) {
         Indenter i = new Indenter(level);
-        i.display("BoolValue: " + value);
+        i.display("BoolValue: " + this);
     }
 }
 
 class CharValue extends Value {
-    private char value = ' ';
+    // ASCII 문자는 미리 만들어 공유
+    final static CharValue UNDEF = new CharValue();
+    private final static CharValue[] cache = new CharValue[128];
+
+    static {
+        for (char c = 0; c < cache.length; c++)
+            cache[c] = new CharValue(c);
+    }
+
+    private final char value;
 
     CharValue() {
-        type = Type.CHAR;
+        super(Type.CHAR, true);
+        value = ' ';
     }
 
     CharValue(char v) {
-        this();
+        super(Type.CHAR, false);
         value = v;
-        undef = false;
+    }
+
+    static CharValue of(char v) {
+        return v < cache.length ? cache[v] : new CharValue(v);
     }
 
     @Override
@@ -482,21 +549,23 @@ class CharValue extends Value {
     @Override
     public void display(int level) {
         Indenter i = new Indenter(level);
-        i.display("CharValue: " + value);
+        i.display("CharValue: " + this);
     }
 }
 
 class FloatValue extends Value {
-    private float value = 0;
+    final static FloatValue UNDEF = new FloatValue();
+
+    private final float value;
 
     FloatValue() {
-        type = Type.FLOAT;
+        super(Type.FLOAT, true);
+        value = 0;
     }
 
     FloatValue(float v) {
-        this();
+        super(Type.FLOAT, false);
         value = v;
-        undef = false;
     }
 
     @Override
@@ -514,14 +583,20 @@ class FloatValue extends Value {
     @Override
     public void display(int level) {
         Indenter i = new Indenter(level);
-        i.display("FloatValue: " + value);
+        i.display("FloatValue: " + this);
     }
 }
 
 class UndefinedValue extends Value {
-    UndefinedValue() {
-        type = Type.UNDEFINED;
-        undef = true;
+    final static UndefinedValue UNDEF = new UndefinedValue();
+
+    private UndefinedValue() {
+        super(Type.UNDEFINED, true);
+    }
+
+    @Override
+    public String toString() {
+        return "undef";
     }
 
     @Override
@@ -532,9 +607,15 @@ class UndefinedValue extends Value {
 }
 
 class UnusedValue extends Value {
-    UnusedValue() {
-        type = Type.UNUSED;
-        undef = true;
+    final static UnusedValue UNUSED = new UnusedValue();
+
+    private UnusedValue() {
+        super(Type.UNUSED, true);
+    }
+
+    @Override
+    public String toString() {
+        return "unused";
     }
 
     @Override
@@ -588,6 +669,7 @@ class Unary extends Expression {
 class Call extends Expression {
     String name;
     Expressions args;
+    Function target; // Resolver.R이 호출 대상 함수를 연결
 
     Call(String n, Expressions a) {
         name = n;
@@ -652,8 +734,8 @@ class Operator {
     final static String INT_MINUS = "INT-";
     final static String INT_TIMES = "INT*";
     final static String INT_DIV = "INT/";
-    // UnaryOp = !    
-    final static String INT_NEG = "-";
+    // UnaryOp = -
+    final static String INT_NEG = "INT-";
     // RelationalOp = < | <= | == | != | >= | >
     final static String FLOAT_LT = "FLOAT<";
     final static String FLOAT_LE = "FLOAT<=";
@@ -666,8 +748,8 @@ class Operator {
     final static String FLOAT_MINUS = "FLOAT-";
     final static String FLOAT_TIMES = "FLOAT*";
     final static String FLOAT_DIV = "FLOAT/";
-    // UnaryOp = !    
-    final static String FLOAT_NEG = "-";
+    // UnaryOp = -
+    final static String FLOAT_NEG = "FLOAT-";
     // RelationalOp = < | <= | == | != | >= | >
     final static String CHAR_LT = "CHAR<";
     final static String CHAR_LE = "CHAR<=";
@@ -692,14 +774,14 @@ class Operator {
             {TIMES, INT_TIMES}, {DIV, INT_DIV},
             {EQ, INT_EQ}, {NE, INT_NE}, {LT, INT_LT},
             {LE, INT_LE}, {GT, INT_GT}, {GE, INT_GE},
-            {NEG, INT_NEG}, {FLOAT, I2F}, {CHAR, I2C}
+            {FLOAT, I2F}, {CHAR, I2C}
     };
     final static String[][] floatMap = {
             {PLUS, FLOAT_PLUS}, {MINUS, FLOAT_MINUS},
             {TIMES, FLOAT_TIMES}, {DIV, FLOAT_DIV},
             {EQ, FLOAT_EQ}, {NE, FLOAT_NE}, {LT, FLOAT_LT},
             {LE, FLOAT_LE}, {GT, FLOAT_GT}, {GE, FLOAT_GE},
-            {NEG, FLOAT_NEG}, {INT, F2I}
+            {INT, F2I}
     };
     final static String[][] charMap = {
             {EQ, CHAR_EQ}, {NE, CHAR_NE}, {LT, CHAR_LT},
@@ -711,34 +793,63 @@ class Operator {
             {LE, BOOL_LE}, {GT, BOOL_GT}, {GE, BOOL_GE},
             {AND, AND}, {OR, OR}
     };
-    String val;
+    // 타입이 정해진 연산자는 opcode마다 하나만 만들어 공유
+    private final static EnumMap<Opcode, Operator> typed = new EnumMap<>(Opcode.class);
+
+    static {
+        for (Opcode op : Opcode.values())
+            typed.put(op, new Operator(op));
+    }
+
+    private final static HashMap<String, Operator> intOps = index(intMap);
+    private final static HashMap<String, Operator> floatOps = index(floatMap);
+    private final static HashMap<String, Operator> charOps = index(charMap);
+    private final static HashMap<String, Operator> boolOps = index(boolMap);
+
+    final String val;
+    final Opcode opcode; // null before TypeTransformer.T
 
     Operator(String s) {
         val = s;
+        opcode = null;
     }
 
-    static private Operator map(String[][] tmap, String op) {
+    private Operator(Opcode op) {
+        val = op.symbol;
+        opcode = op;
+    }
+
+    static Operator of(Opcode op) {
+        return typed.get(op);
+    }
+
+    static private HashMap<String, Operator> index(String[][] tmap) {
+        HashMap<String, Operator> map = new HashMap<>();
         for (String[] strings : tmap)
-            if (strings[0].equals(op))
-                return new Operator(strings[1]);
-        assert false : "should never reach here";
-        return null;
+            map.put(strings[0], of(Opcode.of(strings[1])));
+        return map;
+    }
+
+    static private Operator map(HashMap<String, Operator> tmap, String op) {
+        Operator o = tmap.get(op);
+        assert o != null : "should never reach here";
+        return o;
     }
 
     static public Operator intMap(String op) {
-        return map(intMap, op);
+        return map(intOps, op);
     }
 
     static public Operator floatMap(String op) {
-        return map(floatMap, op);
+        return map(floatOps, op);
     }
 
     static public Operator charMap(String op) {
-        return map(charMap, op);
+        return map(charOps, op);
     }
 
     static public Operator boolMap(String op) {
-        return map(boolMap, op);
+        return map(boolOps, op);
     }
 
     @Override
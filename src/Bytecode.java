@@ -0,0 +1,363 @@
+// Bytecode.java
+
+// Compiles a resolved Clite program (after TypeTransformer.T and
+// Resolver.R) into a flat int[] of stack machine instructions for VM.
+// Typed opcodes follow the typed Operator constants; operands are
+// stored inline after the opcode.  Every slot holds a long: ints,
+// chars and bools as their int value, floats as their raw int bits,
+// and UNDEF for a slot that has never been assigned.
+
+import java.util.Arrays;
+import java.util.HashMap;
+
+public class Bytecode {
+    // Stack and memory
+    final static int CONST = 0;     // CONST v      : push v
+    final static int LOAD_G = 1;    // LOAD_G i     : push globals[i], undef is an error
+    final static int LOAD_L = 2;    // LOAD_L i     : push frame[i], undef is an error
+    final static int COPY_G = 3;    // COPY_G i     : push globals[i] as is
+    final static int COPY_L = 4;    // COPY_L i     : push frame[i] as is
+    final static int STORE_G = 5;   // STORE_G i    : globals[i] = pop
+    final static int STORE_L = 6;   // STORE_L i    : frame[i] = pop
+    final static int CHECK = 7;     // CHECK        : top must not be undef
+    final static int POP = 8;
+    // BooleanOp
+    final static int AND = 9;
+    final static int OR = 10;
+    // RelationalOp (char and bool operands share the int opcodes)
+    final static int INT_LT = 11;
+    final static int INT_LE = 12;
+    final static int INT_EQ = 13;
+    final static int INT_NE = 14;
+    final static int INT_GT = 15;
+    final static int INT_GE = 16;
+    final static int FLOAT_LT = 17;
+    final static int FLOAT_LE = 18;
+    final static int FLOAT_EQ = 19;
+    final static int FLOAT_NE = 20;
+    final static int FLOAT_GT = 21;
+    final static int FLOAT_GE = 22;
+    // ArithmeticOp
+    final static int INT_PLUS = 23;
+    final static int INT_MINUS = 24;
+    final static int INT_TIMES = 25;
+    final static int INT_DIV = 26;
+    final static int FLOAT_PLUS = 27;
+    final static int FLOAT_MINUS = 28;
+    final static int FLOAT_TIMES = 29;
+    final static int FLOAT_DIV = 30;
+    // UnaryOp and casts (C2I needs no code, a char is already its int value)
+    final static int NOT = 31;
+    final static int INT_NEG = 32;
+    final static int FLOAT_NEG = 33;
+    final static int I2F = 34;
+    final static int F2I = 35;
+    final static int I2C = 36;
+    // Control
+    final static int JUMP = 37;     // JUMP pc
+    final static int JUMPF = 38;    // JUMPF pc     : pop, jump if false
+    final static int CALL = 39;     // CALL f       : arguments are on the stack
+    final static int RET = 40;      // RET i        : return frame[i], the return slot
+    final static int CONST_UNDEF = 41;  // push undef, used to reset the locals of an inlined function
+    // Undef operands (Semantics stops only when both operands are undef)
+    final static int DEFAULT = 42;  // DEFAULT d    : top = d if top is undef
+    final static int CHECK2 = 43;   // CHECK2 d     : both top two undef is an error, else DEFAULT d on each
+
+    final static String[] NAMES = {
+            "CONST", "LOAD_G", "LOAD_L", "COPY_G", "COPY_L", "STORE_G", "STORE_L", "CHECK", "POP",
+            "AND", "OR",
+            "INT<", "INT<=", "INT==", "INT!=", "INT>", "INT>=",
+            "FLOAT<", "FLOAT<=", "FLOAT==", "FLOAT!=", "FLOAT>", "FLOAT>=",
+            "INT+", "INT-", "INT*", "INT/",
+            "FLOAT+", "FLOAT-", "FLOAT*", "FLOAT/",
+            "!", "INT_NEG", "FLOAT_NEG", "I2F", "F2I", "I2C",
+            "JUMP", "JUMPF", "CALL", "RET", "CONST_UNDEF", "DEFAULT", "CHECK2"
+    };
+
+    final static long UNDEF = Long.MIN_VALUE;
+
+    // Compiled program
+    int[] code = new int[64];
+    int size;
+    Declarations globals;
+    String[] names;     // 함수 이름
+    int[] entry;        // 함수 시작 주소
+    int[] params;       // 매개변수 개수
+    int[] frameSize;    // 매개변수 + 지역변수 + 반환 슬롯
+    int[] maxStack;     // 함수 내 피연산자 스택 최대 깊이
+    int main;
+
+    private HashMap<Function, Integer> index = new HashMap<>(); // 함수 -> 번호
+    private int depth, max, ret;
+
+    public static void main(String[] args) {
+        Parser parser = new Parser(new Lexer(args[0]));
+        Program prog = parser.program();
+        StaticTypeCheck.V(prog);
+        Bytecode b = C(Resolver.R(TypeTransformer.T(prog)));
+        b.display();
+    } //main
+
+    static Bytecode C(Program p) {
+        Bytecode b = new Bytecode();
+        int n = p.functions.size();
+        b.globals = p.globals;
+        b.names = new String[n];
+        b.entry = new int[n];
+        b.params = new int[n];
+        b.frameSize = new int[n];
+        b.maxStack = new int[n];
+        for (int i = 0; i < n; i++)
+            b.index.put(p.functions.get(i), i);
+        b.main = b.index.get(p.functions.findFunction("main"));
+        for (int i = 0; i < n; i++) {
+            Function f = p.functions.get(i);
+            b.names[i] = f.id;
+            b.entry[i] = b.size;
+            b.params[i] = f.params.size();
+            b.frameSize[i] = Resolver.frameSize(f);
+            b.depth = b.max = 0;
+            b.ret = b.frameSize[i] - 1;
+            b.C(f.body);
+            b.emit(RET, 1, b.ret);
+            b.maxStack[i] = b.max;
+        }
+        return b;
+    }
+
+    // 명령어 추가, delta는 피연산자 스택 깊이 변화량
+    private int emit(int op, int delta) {
+        if (size + 2 > code.length)
+            code = Arrays.copyOf(code, code.length * 2);
+        code[size++] = op;
+        depth += delta;
+        max = Math.max(max, depth);
+        return size;
+    }
+
+    private void emit(int op, int delta, int operand) {
+        emit(op, delta);
+        code[size++] = operand;
+    }
+
+    // 점프 명령의 목적지를 나중에 채운다
+    private int jump(int op, int delta) {
+        emit(op, delta, -1);
+        return size - 1;
+    }
+
+    private void patch(int at) {
+        code[at] = size;
+    }
+
+    void C(Statement s) {
+        if (s instanceof Skip)
+            return;
+        if (s instanceof Assignment a) {
+            C(a.source, true);
+            store((ResolvedVariable) a.target);
+            return;
+        }
+        if (s instanceof Conditional c) {
+            test(c.test);
+            int toElse = jump(JUMPF, -1);
+            C(c.thenbranch);
+            int toEnd = jump(JUMP, 0);
+            patch(toElse);
+            C(c.elsebranch);
+            patch(toEnd);
+            return;
+        }
+        if (s instanceof Loop l) {
+            int top = size;
+            test(l.test);
+            int toEnd = jump(JUMPF, -1);
+            C(l.body);
+            emit(JUMP, 0, top);
+            patch(toEnd);
+            return;
+        }
+        if (s instanceof Block b) {
+            for (Statement stmt : b.members) {
+                C(stmt);
+                if (stmt instanceof Return)  // Semantics처럼 블록만 끝낸다
+                    break;
+            }
+            return;
+        }
+        if (s instanceof Call c) {
+            call(c);
+            emit(POP, -1);
+            return;
+        }
+        if (s instanceof Return r) {
+            C(r.result, true);
+            store((ResolvedVariable) r.target);
+            return;
+        }
+        throw new IllegalArgumentException("should never reach here");
+    }
+
+    // copy가 참이면 값을 그대로 옮기는 문맥(대입, 인수, 반환)이라 undef도 허용
+    void C(Expression e, boolean copy) {
+        if (e instanceof Value v) {
+            if (v.undef) {
+                emit(CONST_UNDEF, 1);
+                if (!copy)
+                    emit(CHECK, 0);
+                return;
+            }
+            emit(CONST, 1, (int) bits(v));
+            return;
+        }
+        if (e instanceof ResolvedVariable v) {
+            if (v.global)
+                emit(copy ? COPY_G : LOAD_G, 1, v.offset);
+            else
+                emit(copy ? COPY_L : LOAD_L, 1, v.offset);
+            return;
+        }
+        if (e instanceof Binary b) {
+            // applyBinary처럼 둘 다 undef일 때만 오류, 하나만 undef면 기본값으로 계산
+            boolean u1 = undefined(b.term1), u2 = undefined(b.term2);
+            int d = base(b.op);
+            C(b.term1, u1);
+            if (u1 && !u2)
+                emit(DEFAULT, 0, d);
+            C(b.term2, u2);
+            if (u2 && !u1)
+                emit(DEFAULT, 0, d);
+            if (u1 && u2)
+                emit(CHECK2, 0, d);
+            emit(binary(b.op), -1);
+            return;
+        }
+        if (e instanceof Unary u) {
+            C(u.term, false);
+            int op = unary(u.op);
+            if (op >= 0)
+                emit(op, 0);
+            return;
+        }
+        if (e instanceof Call c) {
+            call(c);
+            if (!copy)
+                emit(CHECK, 0);
+            return;
+        }
+        throw new IllegalArgumentException("should never reach here");
+    }
+
+    // 조건식은 검사하지 않는다, undef는 false
+    private void test(Expression e) {
+        boolean u = undefined(e);
+        C(e, u);
+        if (u)
+            emit(DEFAULT, 0, 0);
+    }
+
+    // undef일 수 있는 식 (변수, 호출 결과, undef 상수)
+    static boolean undefined(Expression e) {
+        return e instanceof Variable || e instanceof Call || e instanceof Value v && v.undef;
+    }
+
+    // undef 피연산자를 읽을 때의 값, UndefinedValue의 charValue()는 ' '
+    static int base(Operator op) {
+        return switch (op.opcode) {
+            case CHAR_LT, CHAR_LE, CHAR_EQ, CHAR_NE, CHAR_GT, CHAR_GE -> ' ';
+            default -> 0;
+        };
+    }
+
+    private void call(Call c) {
+        int argc = 0;
+        if (c.args != null)
+            for (Expression arg : c.args) {
+                C(arg, true);
+                argc++;
+            }
+        emit(CALL, 1 - argc, index.get(c.target));
+    }
+
+    private void store(ResolvedVariable v) {
+        emit(v.global ? STORE_G : STORE_L, -1, v.offset);
+    }
+
+    static int binary(Operator op) {
+        return switch (op.opcode) {
+            case AND -> AND;
+            case OR -> OR;
+            case INT_LT, CHAR_LT, BOOL_LT -> INT_LT;
+            case INT_LE, CHAR_LE, BOOL_LE -> INT_LE;
+            case INT_EQ, CHAR_EQ, BOOL_EQ -> INT_EQ;
+            case INT_NE, CHAR_NE, BOOL_NE -> INT_NE;
+            case INT_GT, CHAR_GT, BOOL_GT -> INT_GT;
+            case INT_GE, CHAR_GE, BOOL_GE -> INT_GE;
+            case FLOAT_LT -> FLOAT_LT;
+            case FLOAT_LE -> FLOAT_LE;
+            case FLOAT_EQ -> FLOAT_EQ;
+            case FLOAT_NE -> FLOAT_NE;
+            case FLOAT_GT -> FLOAT_GT;
+            case FLOAT_GE -> FLOAT_GE;
+            case INT_PLUS -> INT_PLUS;
+            case INT_MINUS -> INT_MINUS;
+            case INT_TIMES -> INT_TIMES;
+            case INT_DIV -> INT_DIV;
+            case FLOAT_PLUS -> FLOAT_PLUS;
+            case FLOAT_MINUS -> FLOAT_MINUS;
+            case FLOAT_TIMES -> FLOAT_TIMES;
+            case FLOAT_DIV -> FLOAT_DIV;
+            default -> throw new IllegalArgumentException("Unknown binary operator " + op.val);
+        };
+    }
+
+    static int unary(Operator op) {
+        return switch (op.opcode) {
+            case NOT -> NOT;
+            case INT_NEG -> INT_NEG;
+            case FLOAT_NEG -> FLOAT_NEG;
+            case I2F -> I2F;
+            case F2I -> F2I;
+            case I2C -> I2C;
+            case C2I -> -1;
+            default -> throw new IllegalArgumentException("Unknown unary operator " + op.val);
+        };
+    }
+
+    static long bits(Value v) {
+        if (v.type() == Type.FLOAT)
+            return Float.floatToRawIntBits(v.floatValue());
+        if (v.type() == Type.CHAR)
+            return v.charValue();
+        return v.intValue();
+    }
+
+    static Value value(long bits, Type t) {
+        if (bits == UNDEF)
+            return UndefinedValue.UNDEF;
+        if (t == Type.FLOAT)
+            return new FloatValue(Float.intBitsToFloat((int) bits));
+        if (t == Type.CHAR)
+            return CharValue.of((char) bits);
+        if (t == Type.BOOL)
+            return BoolValue.of(bits != 0);
+        return IntValue.of((int) bits);
+    }
+
+    public void display() {
+        for (int f = 0; f < names.length; f++) {
+            System.out.print("\n" + names[f] + ": params " + params[f]
+                    + ", frame " + frameSize[f] + ", stack " + maxStack[f]);
+            int end = f + 1 < names.length ? entry[f + 1] : size;
+            for (int pc = entry[f]; pc < end; pc++) {
+                int op = code[pc];
+                String line = String.format("\n  %4d  %s", pc, NAMES[op]);
+                if (op == CONST || op == JUMP || op == JUMPF || op == CALL || op == RET
+                        || op == DEFAULT || op == CHECK2 || (op >= LOAD_G && op <= STORE_L))
+                    line += " " + code[++pc];
+                System.out.print(line);
+            }
+        }
+        System.out.println();
+    }
+} // class Bytecode
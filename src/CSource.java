@@ -0,0 +1,761 @@
+// CSource.java
+
+// Ahead-of-time backend: G translates a typed Clite program (after
+// TypeTransformer.T) into one portable C99 file whose output matches
+// State.display, undef checks and stack overflows included.
+// usage: java CSource prog.cpp out.c [-O]
+//        cc -std=c99 -O2 -ffp-contract=off -pthread -o prog out.c -lm
+
+import java.io.FileWriter;
+import java.io.IOException;
+import java.util.HashMap;
+
+public class CSource {
+
+    private final StringBuilder out = new StringBuilder();
+    private final HashMap<Variable, Type> globals = new HashMap<>();
+    private Functions functions;
+    private HashMap<Variable, Type> locals;     // 현재 함수의 매개변수, 지역변수, 반환 변수
+    private int temp;                           // 다음 임시 변수 번호
+    private int indent;
+
+    public static void main(String[] args) throws IOException {
+        Parser parser = new Parser(new Lexer(args[0]));
+        Program prog = parser.program();
+        StaticTypeCheck.V(prog);
+        Program out = TypeTransformer.T(prog);
+        if (args.length > 2 && args[2].equals("-O"))
+            out = Optimizer.O(out);
+        try (FileWriter w = new FileWriter(args[1])) {
+            w.write(G(out));
+        }
+        System.out.println("\n\nC source written to " + args[1]);
+    } //main
+
+    static String G(Program p) {
+        CSource c = new CSource();
+        c.functions = p.functions;
+        c.program(p);
+        return c.out.toString();
+    }
+
+    // 변수마다 (값, 정의 플래그) 쌍이므로 undef가 대입, 인수, 반환으로 Semantics처럼 흐른다.
+    // C가 열어 둔 부분은 Java대로: 정수 연산은 unsigned로 감싸고, INT_MIN / -1과
+    // float -> int 변환, 16비트 char, 항상 두 피연산자를 계산하는 &&와 ||
+    private void program(Program p) {
+        line("#include <math.h>");
+        line("#include <pthread.h>");
+        line("#include <stdint.h>");
+        line("#include <stdio.h>");
+        line("#include <stdlib.h>");
+        line("#include <string.h>");
+        line("");
+        line("#pragma STDC FP_CONTRACT OFF");
+        line("");
+        line("typedef struct { int v; int d; } ci;     /* int, char, bool */");
+        line("typedef struct { float v; int d; } cf;   /* float */");
+        line("");
+        line("static long sp = " + p.globals.size() + ";    /* stack slots in use, as in Memory */");
+        line("");
+        line("static int undef_i(void) { fputs(\"reference to undef value\\n\", stderr); exit(1); return 0; }");
+        line("static float undef_f(void) { undef_i(); return 0; }");
+        line("static int vi(ci x) { return x.d ? x.v : undef_i(); }");
+        line("static float vf(cf x) { return x.d ? x.v : undef_f(); }");
+        line("#define VI(x) ((x).d ? (x).v : undef_i())");
+        line("#define VF(x) ((x).d ? (x).v : undef_f())");
+        line("#define DI(x, u) ((x).d ? (x).v : (u))");
+        line("#define DF(x) ((x).d ? (x).v : 0.0f)");
+        line("static int di(ci x, int u) { return DI(x, u); }");
+        line("static float df(cf x) { return DF(x); }");
+        line("static int both(int d1, int d2) { return d1 || d2 ? 0 : undef_i(); }");
+        line("");
+        // Memory처럼 프레임을 슬롯으로 세어 같은 깊이에서 스택 넘침을 알린다
+        line("static void enter(long n) {");
+        line("    if ((sp += n) > " + Memory.LIMIT + "L) {");
+        line("        printf(\"Stack Overflow! (limit %d slots)\\n\", " + Memory.LIMIT + ");");
+        line("        exit(1);");
+        line("    }");
+        line("}");
+        line("");
+        line("static int idiv(int a, int b) {");
+        line("    if (b == 0) { fputs(\"/ by zero\\n\", stderr); exit(1); }");
+        line("    return b == -1 ? (int) (0u - (unsigned) a) : a / b;");
+        line("}");
+        line("");
+        line("static int f2i(float f) {");
+        line("    if (f != f) return 0;");
+        line("    if (f >= 2147483647.0f) return 2147483647;");
+        line("    if (f <= -2147483648.0f) return -2147483647 - 1;");
+        line("    return (int) f;");
+        line("}");
+        line("");
+        floatDisplay();
+        line("");
+        for (Declaration d : p.globals) {
+            globals.put(d.v, d.t);
+            line("static " + pair(d.t) + " " + global(d.v) + " = {0, 0};");
+        }
+        line("");
+        for (Function f : p.functions)
+            line(prototype(f) + ";");
+        for (Function f : p.functions)
+            function(f);
+        line("");
+        line("static void display(void) {");
+        line("    fputs(\"{\", stdout);");
+        String sep = "";
+        for (Declaration d : p.globals) {
+            line("    fputs(\"" + sep + d.v + "=\", stdout);");
+            String g = global(d.v);
+            String show;
+            if (d.t == Type.FLOAT)
+                show = "put_float(" + g + ".v)";
+            else if (d.t == Type.BOOL)
+                show = "fputs(" + g + ".v ? \"true\" : \"false\", stdout)";
+            else if (d.t == Type.CHAR)
+                show = "put_char(" + g + ".v)";
+            else
+                show = "printf(\"%d\", " + g + ".v)";
+            line("    if (" + g + ".d) " + show + "; else fputs(\"undef\", stdout);");
+            sep = ", ";
+        }
+        line("    fputs(\"}\\n\", stdout);");
+        line("}");
+        line("");
+        // Semantics처럼 1 GB 스택을 가진 스레드에서 실행
+        line("static void *run(void *arg) {");
+        line("    (void) arg;");
+        line("    " + function(functions.findFunction("main").id) + "();");
+        line("    return NULL;");
+        line("}");
+        line("");
+        line("int main(void) {");
+        line("    pthread_attr_t attr;");
+        line("    pthread_t thread;");
+        line("    pthread_attr_init(&attr);");
+        line("    pthread_attr_setstacksize(&attr, (size_t) 1 << 30);");
+        line("    if (pthread_create(&thread, &attr, run, NULL) == 0)");
+        line("        pthread_join(thread, NULL);");
+        line("    else");
+        line("        run(NULL);");
+        line("    display();");
+        line("    return 0;");
+        line("}");
+    }
+
+    // JDK 17 Float.toString(FloatingDecimal)을 그대로 옮긴 것: 가장 짧은 자릿수가 아니라
+    // Java가 내는 자릿수를 같은 단계(long 정수, int, long, 큰 정수)로 만든다
+    private void floatDisplay() {
+        line("static const int n5bits[] = {0, 3, 5, 7, 10, 12, 14, 17, 19, 21, 24, 26, 28, 31, 33, 35, 38, 40, 42, 45, 47, 49, 52, 54, 56, 59, 61};");
+        line("static const int insig2[] = {0, 0, 0, 0, 1, 1, 1, 2, 2, 2, 3, 3, 3, 3, 4, 4, 4, 5, 5, 5, 6, 6, 6, 6, 7, 7, 7, 8, 8, 8, 9, 9, 9, 9, 10, 10, 10, 11, 11, 11, 12, 12, 12, 12, 13, 13, 13, 14, 14, 14, 15, 15, 15, 15, 16, 16, 16, 17, 17, 17, 18, 18, 18, 19};");
+        line("typedef struct { uint32_t w[20]; } big;     /* FDBigInteger, little endian */");
+        line("static uint64_t pow5(int p) { uint64_t v = 1; while (p-- > 0) v *= 5; return v; }");
+        line("static void big_mul(big *a, uint32_t m) {");
+        line("    uint64_t c = 0;");
+        line("    int i;");
+        line("    for (i = 0; i < 20; i++) { c += (uint64_t) a->w[i] * m; a->w[i] = (uint32_t) c; c >>= 32; }");
+        line("}");
+        line("static void big_pow52(big *a, uint64_t v, int p5, int p2) {   /* v * 5^p5 * 2^p2 */");
+        line("    memset(a, 0, sizeof *a);");
+        line("    a->w[0] = (uint32_t) v;");
+        line("    a->w[1] = (uint32_t) (v >> 32);");
+        line("    for (; p5 > 0; p5--) big_mul(a, 5);");
+        line("    for (; p2 > 0; p2--) big_mul(a, 2);");
+        line("}");
+        line("static int big_cmp(const big *a, const big *b) {");
+        line("    int i;");
+        line("    for (i = 19; i >= 0; i--)");
+        line("        if (a->w[i] != b->w[i]) return a->w[i] < b->w[i] ? -1 : 1;");
+        line("    return 0;");
+        line("}");
+        line("static void big_add(big *r, const big *a, const big *b) {");
+        line("    uint64_t c = 0;");
+        line("    int i;");
+        line("    for (i = 0; i < 20; i++) { c += (uint64_t) a->w[i] + b->w[i]; r->w[i] = (uint32_t) c; c >>= 32; }");
+        line("}");
+        line("static void big_sub(big *a, const big *b) {");
+        line("    int64_t c = 0;");
+        line("    int i;");
+        line("    for (i = 0; i < 20; i++) { c += (int64_t) a->w[i] - b->w[i]; a->w[i] = (uint32_t) c; c = c < 0 ? -1 : 0; }");
+        line("}");
+        line("static int quo_rem(big *b, const big *s) {     /* q = b / s, b = 10 * (b % s) */");
+        line("    int q = 0;");
+        line("    while (big_cmp(b, s) >= 0) { big_sub(b, s); q++; }");
+        line("    big_mul(b, 10);");
+        line("    return q;");
+        line("}");
+        line("static int estimate_dec_exp(uint64_t fract, int binExp) {");
+        line("    uint64_t bits = 0x3FF0000000000000ULL | (fract & 0x000FFFFFFFFFFFFFULL), dbits;");
+        line("    double d2, d;");
+        line("    int exponent, r, neg;");
+        line("    memcpy(&d2, &bits, 8);");
+        line("    d = (d2 - 1.5) * 0.289529654 + 0.176091259 + (double) binExp * 0.301029995663981;");
+        line("    memcpy(&dbits, &d, 8);");
+        line("    exponent = (int) ((dbits >> 52) & 0x7FF) - 1023;");
+        line("    neg = (dbits >> 63) != 0;");
+        line("    if (exponent >= 0 && exponent < 52) {");
+        line("        uint64_t mask = 0x000FFFFFFFFFFFFFULL >> exponent;");
+        line("        r = (int) (((dbits & 0x000FFFFFFFFFFFFFULL) | (1ULL << 52)) >> (52 - exponent));");
+        line("        return neg ? ((mask & dbits) == 0 ? -r : -r - 1) : r;");
+        line("    }");
+        line("    if (exponent < 0)");
+        line("        return (dbits & ~(1ULL << 63)) == 0 ? 0 : (neg ? -1 : 0);");
+        line("    return (int) d;");
+        line("}");
+        line("/* FloatingDecimal.dtoa: digits and decExponent, returns the digit count */");
+        line("static int dtoa(int binExp, uint64_t fract, int nSig, char *digits, int *decExponent) {");
+        line("    int tailZeros = __builtin_ctzll(fract), nFractBits = 53 - tailZeros;");
+        line("    int nTinyBits = nFractBits - binExp - 1 > 0 ? nFractBits - binExp - 1 : 0;");
+        line("    int decExp, B2, B5, S2, S5, M2, M5, common, Bbits, tenSbits, ndigit = 0, q, low, high, i;");
+        line("    int64_t lowDiff = 0;");
+        line("    if (binExp <= 62 && binExp >= -21 && nTinyBits < 27 && nFractBits + n5bits[nTinyBits] < 64 && nTinyBits == 0) {");
+        line("        /* exact integer: developLongDigits */");
+        line("        int insig = binExp > nSig && binExp - nSig - 1 > 1 && binExp - nSig - 1 < 64 ? insig2[binExp - nSig - 1] : 0;");
+        line("        uint64_t v = binExp >= 52 ? fract << (binExp - 52) : fract >> (52 - binExp);");
+        line("        char tmp[20];");
+        line("        int c, no = 19, e = 0;");
+        line("        if (insig != 0) {");
+        line("            uint64_t p10 = pow5(insig) << insig, residue = v % p10;");
+        line("            v /= p10;");
+        line("            e += insig;");
+        line("            if (residue >= p10 >> 1) v++;");
+        line("        }");
+        line("        c = (int) (v % 10); v /= 10;");
+        line("        while (c == 0) { e++; c = (int) (v % 10); v /= 10; }");
+        line("        while (v != 0) { tmp[no--] = (char) ('0' + c); e++; c = (int) (v % 10); v /= 10; }");
+        line("        tmp[no] = (char) ('0' + c);");
+        line("        *decExponent = e + 1;");
+        line("        memcpy(digits, tmp + no, 20 - no);");
+        line("        return 20 - no;");
+        line("    }");
+        line("    decExp = estimate_dec_exp(fract, binExp);");
+        line("    B5 = decExp < 0 ? -decExp : 0;");
+        line("    B2 = B5 + nTinyBits + binExp;");
+        line("    S5 = decExp > 0 ? decExp : 0;");
+        line("    S2 = S5 + nTinyBits;");
+        line("    M5 = B5;");
+        line("    M2 = B2 - nSig;");
+        line("    fract >>= tailZeros;");
+        line("    B2 -= nFractBits - 1;");
+        line("    common = B2 < S2 ? B2 : S2;");
+        line("    B2 -= common; S2 -= common; M2 -= common;");
+        line("    if (nFractBits == 1) M2 -= 1;");
+        line("    if (M2 < 0) { B2 -= M2; S2 -= M2; M2 = 0; }");
+        line("    Bbits = nFractBits + B2 + (B5 < 27 ? n5bits[B5] : B5 * 3);");
+        line("    tenSbits = S2 + 1 + (S5 + 1 < 27 ? n5bits[S5 + 1] : (S5 + 1) * 3);");
+        line("    if (Bbits < 64 && tenSbits < 64) {");
+        line("        /* int and long steps wrap on overflow like Java's */");
+        line("        if (Bbits < 32 && tenSbits < 32) {");
+        line("            int32_t b = (int32_t) (((uint32_t) fract * (uint32_t) pow5(B5)) << B2);");
+        line("            int32_t s = (int32_t) ((uint32_t) pow5(S5) << S2);");
+        line("            int32_t m = (int32_t) ((uint32_t) pow5(M5) << M2);");
+        line("            int32_t tens = (int32_t) ((uint32_t) s * 10u);");
+        line("            q = b / s;");
+        line("            b = (int32_t) (10u * (uint32_t) (b % s));");
+        line("            m = (int32_t) ((uint32_t) m * 10u);");
+        line("            low = b < m;");
+        line("            high = (int32_t) ((uint32_t) b + (uint32_t) m) > tens;");
+        line("            if (q == 0 && !high) decExp--; else digits[ndigit++] = (char) ('0' + q);");
+        line("            if (decExp < -3 || decExp >= 8) high = low = 0;");
+        line("            while (!low && !high) {");
+        line("                q = b / s;");
+        line("                b = (int32_t) (10u * (uint32_t) (b % s));");
+        line("                m = (int32_t) ((uint32_t) m * 10u);");
+        line("                if (m > 0) {");
+        line("                    low = b < m;");
+        line("                    high = (int32_t) ((uint32_t) b + (uint32_t) m) > tens;");
+        line("                } else");
+        line("                    low = high = 1;");
+        line("                digits[ndigit++] = (char) ('0' + q);");
+        line("            }");
+        line("            lowDiff = (int64_t) ((uint64_t) (int64_t) b * 2u - (uint64_t) (int64_t) tens);");
+        line("        } else {");
+        line("            int64_t b = (int64_t) ((fract * pow5(B5)) << B2);");
+        line("            int64_t s = (int64_t) (pow5(S5) << S2);");
+        line("            int64_t m = (int64_t) (pow5(M5) << M2);");
+        line("            int64_t tens = (int64_t) ((uint64_t) s * 10u);");
+        line("            q = (int) (b / s);");
+        line("            b = (int64_t) (10u * (uint64_t) (b % s));");
+        line("            m = (int64_t) ((uint64_t) m * 10u);");
+        line("            low = b < m;");
+        line("            high = (int64_t) ((uint64_t) b + (uint64_t) m) > tens;");
+        line("            if (q == 0 && !high) decExp--; else digits[ndigit++] = (char) ('0' + q);");
+        line("            if (decExp < -3 || decExp >= 8) high = low = 0;");
+        line("            while (!low && !high) {");
+        line("                q = (int) (b / s);");
+        line("                b = (int64_t) (10u * (uint64_t) (b % s));");
+        line("                m = (int64_t) ((uint64_t) m * 10u);");
+        line("                if (m > 0) {");
+        line("                    low = b < m;");
+        line("                    high = (int64_t) ((uint64_t) b + (uint64_t) m) > tens;");
+        line("                } else");
+        line("                    low = high = 1;");
+        line("                digits[ndigit++] = (char) ('0' + q);");
+        line("            }");
+        line("            lowDiff = (int64_t) (((uint64_t) b << 1) - (uint64_t) tens);");
+        line("        }");
+        line("    } else {");
+        line("        big bv, sv, mv, tv, sum;");
+        line("        big_pow52(&sv, 1, S5, S2);");
+        line("        big_pow52(&bv, fract, B5, B2);");
+        line("        big_pow52(&mv, 1, M5 + 1, M2 + 1);");
+        line("        big_pow52(&tv, 1, S5 + 1, S2 + 1);");
+        line("        q = quo_rem(&bv, &sv);");
+        line("        low = big_cmp(&bv, &mv) < 0;");
+        line("        big_add(&sum, &bv, &mv);");
+        line("        high = big_cmp(&tv, &sum) <= 0;");
+        line("        if (q == 0 && !high) decExp--; else digits[ndigit++] = (char) ('0' + q);");
+        line("        if (decExp < -3 || decExp >= 8) high = low = 0;");
+        line("        while (!low && !high) {");
+        line("            q = quo_rem(&bv, &sv);");
+        line("            big_mul(&mv, 10);");
+        line("            low = big_cmp(&bv, &mv) < 0;");
+        line("            big_add(&sum, &bv, &mv);");
+        line("            high = big_cmp(&tv, &sum) <= 0;");
+        line("            digits[ndigit++] = (char) ('0' + q);");
+        line("        }");
+        line("        if (high && low) {");
+        line("            big_mul(&bv, 2);");
+        line("            lowDiff = big_cmp(&bv, &tv);");
+        line("        }");
+        line("    }");
+        line("    *decExponent = decExp + 1;");
+        line("    if (high && (!low || lowDiff > 0 || (lowDiff == 0 && (digits[ndigit - 1] & 1) != 0))) {");
+        line("        /* roundup */");
+        line("        i = ndigit - 1;");
+        line("        while (digits[i] == '9' && i > 0) digits[i--] = '0';");
+        line("        if (digits[i] == '9') { ++*decExponent; digits[0] = '1'; }");
+        line("        else digits[i]++;");
+        line("    }");
+        line("    return ndigit;");
+        line("}");
+        line("static void put_float(float f) {");
+        line("    uint32_t bits;");
+        line("    int fract, binExp, nSig, n, e, i;");
+        line("    char digits[24];");
+        line("    if (f != f) { fputs(\"NaN\", stdout); return; }");
+        line("    if (isinf(f)) { fputs(f > 0 ? \"Infinity\" : \"-Infinity\", stdout); return; }");
+        line("    if (f == 0) { fputs(signbit(f) ? \"-0.0\" : \"0.0\", stdout); return; }");
+        line("    memcpy(&bits, &f, 4);");
+        line("    if (bits >> 31) putchar('-');");
+        line("    fract = (int) (bits & 0x7FFFFF);");
+        line("    binExp = (int) (bits >> 23 & 0xFF);");
+        line("    if (binExp == 0) {");
+        line("        int lz = __builtin_clz((unsigned) fract), shift = lz - 8;");
+        line("        fract <<= shift;");
+        line("        binExp = 1 - shift;");
+        line("        nSig = 32 - lz;");
+        line("    } else {");
+        line("        fract |= 1 << 23;");
+        line("        nSig = 24;");
+        line("    }");
+        line("    n = dtoa(binExp - 127, (uint64_t) fract << 29, nSig, digits, &e);");
+        line("    /* getChars */");
+        line("    if (e > 0 && e < 8) {");
+        line("        int k = n < e ? n : e;");
+        line("        fwrite(digits, 1, k, stdout);");
+        line("        if (k < e) {");
+        line("            for (i = k; i < e; i++) putchar('0');");
+        line("            fputs(\".0\", stdout);");
+        line("        } else {");
+        line("            putchar('.');");
+        line("            if (k < n) fwrite(digits + k, 1, n - k, stdout); else putchar('0');");
+        line("        }");
+        line("    } else if (e <= 0 && e > -3) {");
+        line("        fputs(\"0.\", stdout);");
+        line("        for (i = e; i < 0; i++) putchar('0');");
+        line("        fwrite(digits, 1, n, stdout);");
+        line("    } else {");
+        line("        putchar(digits[0]);");
+        line("        putchar('.');");
+        line("        if (n > 1) fwrite(digits + 1, 1, n - 1, stdout); else putchar('0');");
+        line("        printf(\"E%d\", e - 1);");
+        line("    }");
+        line("}");
+        line("");
+        line("static void put_char(int c) {");
+        line("    if (c < 0x80) putchar(c);");
+        line("    else if (c < 0x800) { putchar(0xC0 | c >> 6); putchar(0x80 | (c & 0x3F)); }");
+        line("    else { putchar(0xE0 | c >> 12); putchar(0x80 | (c >> 6 & 0x3F)); putchar(0x80 | (c & 0x3F)); }");
+        line("}");
+    }
+
+    private String prototype(Function f) {
+        StringBuilder s = new StringBuilder("static ");
+        s.append(f.t == Type.VOID ? "void" : pair(f.t)).append(" ").append(function(f.id)).append("(");
+        String sep = "";
+        for (Declaration d : f.params) {
+            s.append(sep).append(pair(d.t)).append(" ").append(local(d.v));
+            sep = ", ";
+        }
+        if (f.params.isEmpty())
+            s.append("void");
+        return s.append(")").toString();
+    }
+
+    private void function(Function f) {
+        locals = new HashMap<>();
+        for (Declaration d : f.params)
+            locals.put(d.v, d.t);
+        temp = 0;
+        line("");
+        line(prototype(f) + " {");
+        indent++;
+        Declarations ds = new Declarations();
+        ds.addAll(f.locals);
+        if (f.t != Type.VOID)
+            ds.add(new Declaration(new Variable(f.id), f.t));
+        for (Declaration d : ds) {
+            locals.put(d.v, d.t);
+            line(pair(d.t) + " " + local(d.v) + " = {0, 0};");
+        }
+        int frame = Resolver.frameSize(f);
+        line("enter(" + frame + ");");
+        for (Statement s : f.body.members) {
+            G(s);
+            if (s instanceof Return)
+                break;
+        }
+        line("sp -= " + frame + ";");
+        if (f.t != Type.VOID)
+            line("return " + local(new Variable(f.id)) + ";");
+        indent--;
+        line("}");
+    }
+
+    private void G(Statement s) {
+        if (s instanceof Skip)
+            return;
+        if (s instanceof Assignment a)
+            assign(a.target, a.source);
+        else if (s instanceof Return r)
+            assign(r.target, r.result);
+        else if (s instanceof Block b) {
+            line("{");
+            indent++;
+            for (Statement stmt : b.members) {
+                G(stmt);
+                if (stmt instanceof Return) // Return은 이 Block만 끝낸다
+                    break;
+            }
+            indent--;
+            line("}");
+        } else if (s instanceof Conditional c) {
+            if (ordered(c.test)) {
+                StringBuilder pre = new StringBuilder();
+                String test = test(c.test, pre);
+                line("{");
+                indent++;
+                lines(pre);
+                line("if (" + test + ")");
+            } else
+                line("if (" + test(c.test) + ")");
+            branch(c.thenbranch);
+            if (!(c.elsebranch instanceof Skip)) {
+                line("else");
+                branch(c.elsebranch);
+            }
+            if (ordered(c.test)) {
+                indent--;
+                line("}");
+            }
+        } else if (s instanceof Loop l) {
+            if (ordered(l.test)) {
+                // 테스트의 임시 변수는 반복마다 다시 계산한다
+                StringBuilder pre = new StringBuilder();
+                String test = test(l.test, pre);
+                line("for (;;) {");
+                indent++;
+                lines(pre);
+                line("if (!(" + test + ")) break;");
+                G(l.body);
+                indent--;
+                line("}");
+            } else {
+                line("while (" + test(l.test) + ")");
+                branch(l.body);
+            }
+        } else if (s instanceof Call c) {
+            if (ordered(c)) {
+                StringBuilder pre = new StringBuilder();
+                line("{");
+                indent++;
+                String call = sequence(c, pre, true);
+                lines(pre);
+                line("(void) " + call + ";");
+                indent--;
+                line("}");
+            } else
+                line(call(c) + ";");
+        } else
+            throw new IllegalArgumentException("should never reach here");
+    }
+
+    private void branch(Statement s) {
+        if (s instanceof Block) {
+            G(s);
+            return;
+        }
+        indent++;
+        if (s instanceof Skip)
+            line(";");
+        else
+            G(s);
+        indent--;
+    }
+
+    private void assign(Variable target, Expression source) {
+        String name = locals.containsKey(target) ? local(target) : global(target);
+        if (ordered(source)) {
+            StringBuilder pre = new StringBuilder();
+            String value = sequence(source, pre, true);
+            line("{");
+            indent++;
+            lines(pre);
+            line(name + " = " + value + ";");
+            indent--;
+            line("}");
+        } else
+            line(name + " = " + copy(source) + ";");
+    }
+
+    // C가 계산 순서를 정하지 않아 결과가 달라질 수 있으면 참:
+    // 호출이 둘 이상이거나, 호출과 전역변수 읽기가 함께 있을 때.
+    // 두 피연산자가 모두 undef일 수 있는 연산에 호출이 있어도 참 (정의 플래그를 다시 읽는다)
+    private boolean ordered(Expression e) {
+        int[] count = new int[3];   // 호출 수, 전역변수 읽기 수, 그런 연산 수
+        count(e, count);
+        return count[0] > 1 || count[0] == 1 && count[1] > 0 || count[2] > 0;
+    }
+
+    private void count(Expression e, int[] count) {
+        if (e instanceof Variable v && !locals.containsKey(v))
+            count[1]++;
+        else if (e instanceof Binary b) {
+            if (Bytecode.undefined(b.term1) && Bytecode.undefined(b.term2)
+                    && (b.term1 instanceof Call || b.term2 instanceof Call))
+                count[2]++;
+            count(b.term1, count);
+            count(b.term2, count);
+        } else if (e instanceof Unary u)
+            count(u.term, count);
+        else if (e instanceof Call c) {
+            count[0]++;
+            if (c.args != null)
+                for (Expression arg : c.args)
+                    count(arg, count);
+        }
+    }
+
+    // 값을 그대로 옮기는 문맥 (대입, 인수, 반환): ci/cf 쌍
+    private String copy(Expression e) {
+        if (e instanceof Value v)
+            return "(" + pair(v.type()) + ") {" + (v.undef ? "0, 0" : literal(v) + ", 1") + "}";
+        if (e instanceof Variable v)
+            return name(v);
+        if (e instanceof Call c)
+            return call(c);
+        return "(" + pair(type(e)) + ") {" + checked(e) + ", 1}";
+    }
+
+    // 피연산자 문맥: undef를 검사한 값
+    private String checked(Expression e) {
+        if (e instanceof Value v)
+            return v.undef ? (v.type() == Type.FLOAT ? "undef_f()" : "undef_i()") : literal(v);
+        if (e instanceof Variable v)
+            return (type(v) == Type.FLOAT ? "VF(" : "VI(") + name(v) + ")";
+        if (e instanceof Call c)
+            return (type(c) == Type.FLOAT ? "vf(" : "vi(") + call(c) + ")";
+        if (e instanceof Binary b) {
+            String t1 = Bytecode.undefined(b.term1) ? copy(b.term1) : checked(b.term1);
+            String t2 = Bytecode.undefined(b.term2) ? copy(b.term2) : checked(b.term2);
+            return binary(b, t1, t2);
+        }
+        if (e instanceof Unary u)
+            return unary(u.op.opcode, checked(u.term));
+        throw new IllegalArgumentException("should never reach here");
+    }
+
+    // Semantics.applyBinary처럼 둘 다 undef일 때만 멈추고 하나만 undef면 기본값으로 계산한다.
+    // undef일 수 있는 피연산자는 ci/cf 쌍으로 받는다
+    private String binary(Binary b, String t1, String t2) {
+        boolean u1 = Bytecode.undefined(b.term1), u2 = Bytecode.undefined(b.term2);
+        int d = Bytecode.base(b.op);
+        String value = binary(b.op.opcode, u1 ? orElse(b.term1, t1, d) : t1, u2 ? orElse(b.term2, t2, d) : t2);
+        return u1 && u2 ? "(both(" + t1 + ".d, " + t2 + ".d), " + value + ")" : value;
+    }
+
+    // undef면 d (float이면 0.0)
+    private String orElse(Expression e, String pair, int d) {
+        boolean f = type(e) == Type.FLOAT;
+        if (e instanceof Call)
+            return f ? "df(" + pair + ")" : "di(" + pair + ", " + d + ")";
+        return f ? "DF(" + pair + ")" : "DI(" + pair + ", " + d + ")";
+    }
+
+    // 조건식은 검사하지 않는다, undef는 false
+    private String test(Expression e) {
+        return Bytecode.undefined(e) ? orElse(e, copy(e), 0) : checked(e);
+    }
+
+    private String test(Expression e, StringBuilder pre) {
+        boolean u = Bytecode.undefined(e);
+        String t = sequence(e, pre, u);
+        return u ? orElse(e, t, 0) : t;
+    }
+
+    private String call(Call c) {
+        StringBuilder s = new StringBuilder(function(c.name)).append("(");
+        String sep = "";
+        if (c.args != null)
+            for (Expression arg : c.args) {
+                s.append(sep).append(copy(arg));
+                sep = ", ";
+            }
+        return s.append(")").toString();
+    }
+
+    // 호출과 전역변수 읽기를 계산 순서대로 임시 변수에 옮기고 남은 식을 돌려준다
+    private String sequence(Expression e, StringBuilder pre, boolean copy) {
+        if (e instanceof Value || e instanceof Variable v && locals.containsKey(v))
+            return copy ? copy(e) : checked(e);
+        if (e instanceof Variable v) {
+            String t = temp(type(v), name(v), pre);
+            return copy ? t : (type(v) == Type.FLOAT ? "VF(" : "VI(") + t + ")";
+        }
+        if (e instanceof Binary b) {
+            String t1 = sequence(b.term1, pre, Bytecode.undefined(b.term1));
+            String t2 = sequence(b.term2, pre, Bytecode.undefined(b.term2));
+            String value = binary(b, t1, t2);
+            return copy ? "(" + pair(type(e)) + ") {" + value + ", 1}" : value;
+        }
+        if (e instanceof Unary u) {
+            String value = unary(u.op.opcode, sequence(u.term, pre, false));
+            return copy ? "(" + pair(type(e)) + ") {" + value + ", 1}" : value;
+        }
+        if (e instanceof Call c) {
+            StringBuilder s = new StringBuilder(function(c.name)).append("(");
+            String sep = "";
+            if (c.args != null)
+                for (Expression arg : c.args) {
+                    s.append(sep).append(sequence(arg, pre, true));
+                    sep = ", ";
+                }
+            s.append(")");
+            Type t = type(c);
+            if (t == Type.VOID) {
+                pre.append(s).append(";\n");
+                return "0";
+            }
+            String r = temp(t, s.toString(), pre);
+            return copy ? r : (t == Type.FLOAT ? "vf(" : "vi(") + r + ")";
+        }
+        throw new IllegalArgumentException("should never reach here");
+    }
+
+    private String temp(Type t, String value, StringBuilder pre) {
+        String name = "t" + temp++;
+        pre.append(pair(t)).append(" ").append(name).append(" = ").append(value).append(";\n");
+        return name;
+    }
+
+    private String binary(Opcode op, String a, String b) {
+        return switch (op) {
+            case AND -> "(" + a + " & " + b + ")";
+            case OR -> "(" + a + " | " + b + ")";
+            case INT_LT, CHAR_LT, BOOL_LT, FLOAT_LT -> "(" + a + " < " + b + ")";
+            case INT_LE, CHAR_LE, BOOL_LE, FLOAT_LE -> "(" + a + " <= " + b + ")";
+            case INT_EQ, CHAR_EQ, BOOL_EQ, FLOAT_EQ -> "(" + a + " == " + b + ")";
+            case INT_NE, CHAR_NE, BOOL_NE, FLOAT_NE -> "(" + a + " != " + b + ")";
+            case INT_GT, CHAR_GT, BOOL_GT, FLOAT_GT -> "(" + a + " > " + b + ")";
+            case INT_GE, CHAR_GE, BOOL_GE, FLOAT_GE -> "(" + a + " >= " + b + ")";
+            case INT_PLUS -> "(int) ((unsigned) " + a + " + (unsigned) " + b + ")";
+            case INT_MINUS -> "(int) ((unsigned) " + a + " - (unsigned) " + b + ")";
+            case INT_TIMES -> "(int) ((unsigned) " + a + " * (unsigned) " + b + ")";
+            case INT_DIV -> "idiv(" + a + ", " + b + ")";
+            case FLOAT_PLUS -> "(" + a + " + " + b + ")";
+            case FLOAT_MINUS -> "(" + a + " - " + b + ")";
+            case FLOAT_TIMES -> "(" + a + " * " + b + ")";
+            case FLOAT_DIV -> "(" + a + " / " + b + ")";
+            default -> throw new IllegalArgumentException("Unknown binary operator " + op.symbol);
+        };
+    }
+
+    private String unary(Opcode op, String a) {
+        return switch (op) {
+            case NOT -> "(!" + a + ")";
+            case INT_NEG -> "(int) (0u - (unsigned) " + a + ")";
+            case FLOAT_NEG -> "(-" + a + ")";
+            case I2F -> "((float) " + a + ")";
+            case F2I -> "f2i(" + a + ")";
+            case C2I -> a;
+            case I2C -> "(" + a + " & 0xFFFF)";
+            default -> throw new IllegalArgumentException("Unknown unary operator " + op.symbol);
+        };
+    }
+
+    private static String literal(Value v) {
+        Type t = v.type();
+        if (t == Type.FLOAT) {
+            float f = v.floatValue();
+            if (Float.isNaN(f))
+                return "NAN";
+            if (Float.isInfinite(f))
+                return f > 0 ? "INFINITY" : "(-INFINITY)";
+            return "(" + Float.toHexString(f) + "f)";   // 비트까지 정확한 16진 실수
+        }
+        if (t == Type.BOOL)
+            return v.boolValue() ? "1" : "0";
+        if (t == Type.CHAR)
+            return Integer.toString(v.charValue());
+        int i = v.intValue();
+        if (i == Integer.MIN_VALUE)
+            return "(-2147483647 - 1)";
+        return i < 0 ? "(" + i + ")" : Integer.toString(i);
+    }
+
+    private Type type(Expression e) {
+        if (e instanceof Value v)
+            return v.type();
+        if (e instanceof Variable v)
+            return locals.containsKey(v) ? locals.get(v) : globals.get(v);
+        if (e instanceof Binary b)
+            return b.op.opcode.result();
+        if (e instanceof Unary u)
+            return u.op.opcode.result();
+        if (e instanceof Call c)
+            return functions.findFunction(c.name).t;
+        throw new IllegalArgumentException("should never reach here");
+    }
+
+    private String name(Variable v) {
+        return locals.containsKey(v) ? local(v) : global(v);
+    }
+
+    private static String pair(Type t) {
+        return t == Type.FLOAT ? "cf" : "ci";
+    }
+
+    // C 예약어와 겹치지 않도록 접두사를 붙인다
+    private static String global(Variable v) {
+        return "g_" + v;
+    }
+
+    private static String local(Variable v) {
+        return "l_" + v;
+    }
+
+    private static String function(String id) {
+        return "f_" + id;
+    }
+
+    private void lines(StringBuilder pre) {
+        for (String s : pre.toString().split("\n"))
+            if (!s.isEmpty())
+                line(s);
+    }
+
+    private void line(String s) {
+        out.append("    ".repeat(indent)).append(s).append("\n");
+    }
+} // class CSource
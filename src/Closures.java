@@ -0,0 +1,448 @@
+// Closures.java
+
+// Closure compilation for a resolved Clite program.  L lowers every
+// Expression into a typed closure (IntCode for int, char and bool,
+// FloatCode for float) and every Statement into a StmtCode, choosing
+// the operator and the memory slot once, while the closure is built.
+// Evaluation then reads and writes the tagged slots of Memory directly,
+// without instanceof, operator lookup or Value objects.  Where Semantics
+// copies a value as is (assignment, argument, return) the closure is a
+// LongCode that yields the slot bits, or Bytecode.UNDEF for undef.
+// As in Semantics, a Binary fails only when both operands are undef,
+// and an undef test is false.
+
+import java.util.HashMap;
+
+public class Closures {
+
+    interface IntCode {
+        int eval(State sigma);
+    }
+
+    interface FloatCode {
+        float eval(State sigma);
+    }
+
+    interface LongCode {
+        long eval(State sigma);
+    }
+
+    interface StmtCode {
+        void run(State sigma);
+    }
+
+    // 재귀 호출을 위해 몸체는 나중에 채운다
+    static class FunctionCode {
+        final Function function;
+        final int params;
+        final int frameSize;
+        StmtCode body;
+
+        FunctionCode(Function f) {
+            function = f;
+            params = f.params.size();
+            frameSize = Resolver.frameSize(f);
+        }
+    }
+
+    final static long UNDEF = Bytecode.UNDEF;
+
+    Declarations globals;
+    FunctionCode main;
+
+    private final HashMap<Function, FunctionCode> functions = new HashMap<>();
+    private Type[] slots; // 현재 함수의 프레임 슬롯 타입
+
+    public static void main(String[] args) {
+        Parser parser = new Parser(new Lexer(args[0]));
+        Program prog = parser.program();
+        StaticTypeCheck.V(prog);
+        State state = L(Resolver.R(TypeTransformer.T(prog))).run();
+        System.out.println("\n\nFinal State");
+        state.display();
+    } //main
+
+    static Closures L(Program p) {
+        Closures c = new Closures();
+        c.globals = p.globals;
+        for (Function f : p.functions)
+            c.functions.put(f, new FunctionCode(f));
+        for (Function f : p.functions) {
+            int frame = Resolver.frameSize(f);
+            c.slots = new Type[frame];
+            for (int i = 0; i < f.params.size(); i++)
+                c.slots[i] = f.params.get(i).t;
+            for (int i = 0; i < f.locals.size(); i++)
+                c.slots[f.params.size() + i] = f.locals.get(i).t;
+            c.slots[frame - 1] = f.t;
+            c.functions.get(f).body = c.L(f.body);
+        }
+        c.main = c.functions.get(p.functions.findFunction("main"));
+        return c;
+    }
+
+    StmtCode L(Statement s) {
+        if (s instanceof Skip)
+            return sigma -> { };
+        if (s instanceof Assignment a)
+            return store((ResolvedVariable) a.target, copy(a.source));
+        if (s instanceof Conditional c) {
+            IntCode test = test(c.test);
+            StmtCode thenbranch = L(c.thenbranch), elsebranch = L(c.elsebranch);
+            return sigma -> {
+                if (test.eval(sigma) != 0)
+                    thenbranch.run(sigma);
+                else
+                    elsebranch.run(sigma);
+            };
+        }
+        if (s instanceof Loop l) {
+            IntCode test = test(l.test);
+            StmtCode body = L(l.body);
+            return sigma -> {
+                while (test.eval(sigma) != 0)
+                    body.run(sigma);
+            };
+        }
+        if (s instanceof Block b) {
+            // Semantics처럼 블록은 Return 문에서 끝나므로 그 뒤 문장은 버린다
+            int n = 0;
+            while (n < b.members.size() && !(b.members.get(n++) instanceof Return)) ;
+            StmtCode[] members = new StmtCode[n];
+            for (int i = 0; i < n; i++)
+                members[i] = L(b.members.get(i));
+            return sigma -> {
+                for (StmtCode m : members)
+                    m.run(sigma);
+            };
+        }
+        if (s instanceof Call c) {
+            LongCode call = call(c);
+            return call::eval;
+        }
+        if (s instanceof Return r)
+            return store((ResolvedVariable) r.target, copy(r.result));
+        throw new IllegalArgumentException("should never reach here");
+    }
+
+    private StmtCode store(ResolvedVariable v, LongCode source) {
+        byte tag = tag(typeOf(v));
+        int offset = v.offset;
+        if (v.global)
+            return sigma -> {
+                long bits = source.eval(sigma);
+                sigma.mu.set(offset, bits == UNDEF ? Memory.UNDEF : tag, bits);
+            };
+        return sigma -> {
+            long bits = source.eval(sigma);
+            sigma.mu.set(sigma.dlink + offset, bits == UNDEF ? Memory.UNDEF : tag, bits);
+        };
+    }
+
+    // 값을 그대로 옮기는 문맥: undef도 검사 없이 전달
+    LongCode copy(Expression e) {
+        if (e instanceof Value v) {
+            long bits = v.undef ? UNDEF : Bytecode.bits(v);
+            return sigma -> bits;
+        }
+        if (e instanceof ResolvedVariable v) {
+            int offset = v.offset;
+            if (v.global)
+                return sigma -> bits(sigma.mu, offset);
+            return sigma -> bits(sigma.mu, sigma.dlink + offset);
+        }
+        if (e instanceof Call c)
+            return call(c);
+        if (typeOf(e) == Type.FLOAT) {
+            FloatCode f = floats(e);
+            return sigma -> Float.floatToRawIntBits(f.eval(sigma));
+        }
+        IntCode i = ints(e);
+        return i::eval;
+    }
+
+    // 조건식은 검사하지 않는다, undef는 false
+    private IntCode test(Expression e) {
+        if (!Bytecode.undefined(e))
+            return ints(e);
+        LongCode c = copy(e);
+        return sigma -> {
+            long bits = c.eval(sigma);
+            return bits == UNDEF ? 0 : (int) bits;
+        };
+    }
+
+    // 이항 연산의 피연산자, applyBinary처럼 둘 다 undef일 때만 오류이고
+    // 하나만 undef면 UndefinedValue가 읽히는 값 (0, false, 0.0, char는 ' ')
+    private LongCode operand(Binary b, boolean second) {
+        LongCode c = copy(second ? b.term2 : b.term1);
+        long d = Bytecode.base(b.op);
+        if (second && Bytecode.undefined(b.term1)) {
+            // 첫 피연산자는 부작용 없는 변수나 상수라 다시 읽어도 같다
+            LongCode first = copy(b.term1);
+            return sigma -> {
+                long bits = c.eval(sigma);
+                if (bits != UNDEF)
+                    return bits;
+                defined(first.eval(sigma) != UNDEF);
+                return d;
+            };
+        }
+        return sigma -> {
+            long bits = c.eval(sigma);
+            return bits == UNDEF ? d : bits;
+        };
+    }
+
+    private IntCode intOperand(Binary b, boolean second) {
+        Expression term = second ? b.term2 : b.term1;
+        if (!Bytecode.undefined(term))
+            return ints(term);
+        LongCode c = operand(b, second);
+        return sigma -> (int) c.eval(sigma);
+    }
+
+    private FloatCode floatOperand(Binary b, boolean second) {
+        Expression term = second ? b.term2 : b.term1;
+        if (!Bytecode.undefined(term))
+            return floats(term);
+        LongCode c = operand(b, second);
+        return sigma -> Float.intBitsToFloat((int) c.eval(sigma));
+    }
+
+    // 두 피연산자가 모두 undef일 수 있고 호출이 끼어 있으면 다시 읽을 수 없으므로
+    // Semantics.applyBinary와 같이 Value로 계산한다
+    private static boolean applied(Binary b) {
+        return Bytecode.undefined(b.term1) && Bytecode.undefined(b.term2)
+                && (b.term1 instanceof Call || b.term2 instanceof Call);
+    }
+
+    private LongCode apply(Binary b) {
+        LongCode x = copy(b.term1), y = copy(b.term2);
+        Type t = typeOf(b.term1);
+        Opcode op = b.op.opcode;
+        return sigma -> {
+            Value v1 = Bytecode.value(x.eval(sigma), t), v2 = Bytecode.value(y.eval(sigma), t);
+            StaticTypeCheck.check(v1.isUndef() || v2.isUndef(), "reference to undef value");
+            return Bytecode.bits(op.apply(v1, v2));
+        };
+    }
+
+    private static long bits(Memory mu, int address) {
+        return mu.tag(address) == Memory.UNDEF ? UNDEF : mu.bits(address);
+    }
+
+    private static void defined(boolean d) {
+        StaticTypeCheck.check(d, "reference to undef value");
+    }
+
+    private LongCode call(Call c) {
+        FunctionCode f = functions.get(c.target);
+        int n = c.args == null ? 0 : c.args.size();
+        LongCode[] args = new LongCode[n];
+        byte[] tags = new byte[n];
+        for (int i = 0; i < n; i++) {
+            args[i] = copy(c.args.get(i));
+            tags[i] = tag(typeOf(c.args.get(i)));
+        }
+        // Semantics.addFrame/removeFrame과 같은 프레임 배치
+        return sigma -> {
+            int dlink = sigma.dlink;
+            int base = sigma.a;
+            for (int i = 0; i < args.length; i++) {
+                long bits = args[i].eval(sigma);
+                sigma.push(bits == UNDEF ? Memory.UNDEF : tags[i], bits);
+            }
+            sigma.allocate(f.frameSize - f.params);
+            sigma.dlink = base;
+            f.body.run(sigma);
+            long result = bits(sigma.mu, base + f.frameSize - 1);
+            sigma.deallocate(f.frameSize);
+            sigma.dlink = dlink;
+            return result;
+        };
+    }
+
+    IntCode ints(Expression e) {
+        if (e instanceof Value v) {
+            if (v.undef)
+                return sigma -> {
+                    defined(false);
+                    return 0;
+                };
+            int value = (int) Bytecode.bits(v);
+            return sigma -> value;
+        }
+        if (e instanceof ResolvedVariable v) {
+            int offset = v.offset;
+            if (v.global)
+                return sigma -> {
+                    Memory mu = sigma.mu;
+                    defined(mu.tag(offset) != Memory.UNDEF);
+                    return (int) mu.bits(offset);
+                };
+            return sigma -> {
+                Memory mu = sigma.mu;
+                int address = sigma.dlink + offset;
+                defined(mu.tag(address) != Memory.UNDEF);
+                return (int) mu.bits(address);
+            };
+        }
+        if (e instanceof Call c) {
+            LongCode call = call(c);
+            return sigma -> {
+                long bits = call.eval(sigma);
+                defined(bits != UNDEF);
+                return (int) bits;
+            };
+        }
+        if (e instanceof Binary b) {
+            Opcode op = b.op.opcode;
+            if (applied(b)) {
+                LongCode c = apply(b);
+                return sigma -> (int) c.eval(sigma);
+            }
+            if (op == Opcode.FLOAT_LT || op == Opcode.FLOAT_LE || op == Opcode.FLOAT_EQ
+                    || op == Opcode.FLOAT_NE || op == Opcode.FLOAT_GT || op == Opcode.FLOAT_GE) {
+                FloatCode x = floatOperand(b, false), y = floatOperand(b, true);
+                return switch (op) {
+                    case FLOAT_LT -> sigma -> x.eval(sigma) < y.eval(sigma) ? 1 : 0;
+                    case FLOAT_LE -> sigma -> x.eval(sigma) <= y.eval(sigma) ? 1 : 0;
+                    case FLOAT_EQ -> sigma -> x.eval(sigma) == y.eval(sigma) ? 1 : 0;
+                    case FLOAT_NE -> sigma -> x.eval(sigma) != y.eval(sigma) ? 1 : 0;
+                    case FLOAT_GT -> sigma -> x.eval(sigma) > y.eval(sigma) ? 1 : 0;
+                    default -> sigma -> x.eval(sigma) >= y.eval(sigma) ? 1 : 0;
+                };
+            }
+            IntCode x = intOperand(b, false), y = intOperand(b, true);
+            // bool과 char도 정수 값으로 비교 (false < true)
+            return switch (op) {
+                case AND -> sigma -> x.eval(sigma) & y.eval(sigma);
+                case OR -> sigma -> x.eval(sigma) | y.eval(sigma);
+                case INT_LT, CHAR_LT, BOOL_LT -> sigma -> x.eval(sigma) < y.eval(sigma) ? 1 : 0;
+                case INT_LE, CHAR_LE, BOOL_LE -> sigma -> x.eval(sigma) <= y.eval(sigma) ? 1 : 0;
+                case INT_EQ, CHAR_EQ, BOOL_EQ -> sigma -> x.eval(sigma) == y.eval(sigma) ? 1 : 0;
+                case INT_NE, CHAR_NE, BOOL_NE -> sigma -> x.eval(sigma) != y.eval(sigma) ? 1 : 0;
+                case INT_GT, CHAR_GT, BOOL_GT -> sigma -> x.eval(sigma) > y.eval(sigma) ? 1 : 0;
+                case INT_GE, CHAR_GE, BOOL_GE -> sigma -> x.eval(sigma) >= y.eval(sigma) ? 1 : 0;
+                case INT_PLUS -> sigma -> x.eval(sigma) + y.eval(sigma);
+                case INT_MINUS -> sigma -> x.eval(sigma) - y.eval(sigma);
+                case INT_TIMES -> sigma -> x.eval(sigma) * y.eval(sigma);
+                case INT_DIV -> sigma -> x.eval(sigma) / y.eval(sigma);
+                default -> throw new IllegalArgumentException("Unknown binary operator " + op.symbol);
+            };
+        }
+        if (e instanceof Unary u) {
+            Opcode op = u.op.opcode;
+            if (op == Opcode.F2I) {
+                FloatCode x = floats(u.term);
+                return sigma -> (int) x.eval(sigma);
+            }
+            IntCode x = ints(u.term);
+            return switch (op) {
+                case NOT -> sigma -> x.eval(sigma) ^ 1;
+                case INT_NEG -> sigma -> -x.eval(sigma);
+                case I2C -> sigma -> (char) x.eval(sigma);
+                case C2I -> x;
+                default -> throw new IllegalArgumentException("Unknown unary operator " + op.symbol);
+            };
+        }
+        throw new IllegalArgumentException("should never reach here");
+    }
+
+    FloatCode floats(Expression e) {
+        if (e instanceof Value v) {
+            if (v.undef)
+                return sigma -> {
+                    defined(false);
+                    return 0;
+                };
+            float value = v.floatValue();
+            return sigma -> value;
+        }
+        if (e instanceof ResolvedVariable v) {
+            int offset = v.offset;
+            if (v.global)
+                return sigma -> {
+                    Memory mu = sigma.mu;
+                    defined(mu.tag(offset) != Memory.UNDEF);
+                    return Float.intBitsToFloat((int) mu.bits(offset));
+                };
+            return sigma -> {
+                Memory mu = sigma.mu;
+                int address = sigma.dlink + offset;
+                defined(mu.tag(address) != Memory.UNDEF);
+                return Float.intBitsToFloat((int) mu.bits(address));
+            };
+        }
+        if (e instanceof Call c) {
+            LongCode call = call(c);
+            return sigma -> {
+                long bits = call.eval(sigma);
+                defined(bits != UNDEF);
+                return Float.intBitsToFloat((int) bits);
+            };
+        }
+        if (e instanceof Binary b) {
+            if (applied(b)) {
+                LongCode c = apply(b);
+                return sigma -> Float.intBitsToFloat((int) c.eval(sigma));
+            }
+            FloatCode x = floatOperand(b, false), y = floatOperand(b, true);
+            return switch (b.op.opcode) {
+                case FLOAT_PLUS -> sigma -> x.eval(sigma) + y.eval(sigma);
+                case FLOAT_MINUS -> sigma -> x.eval(sigma) - y.eval(sigma);
+                case FLOAT_TIMES -> sigma -> x.eval(sigma) * y.eval(sigma);
+                case FLOAT_DIV -> sigma -> x.eval(sigma) / y.eval(sigma);
+                default -> throw new IllegalArgumentException("Unknown binary operator " + b.op.val);
+            };
+        }
+        if (e instanceof Unary u) {
+            if (u.op.opcode == Opcode.I2F) {
+                IntCode x = ints(u.term);
+                return sigma -> (float) x.eval(sigma);
+            }
+            if (u.op.opcode == Opcode.FLOAT_NEG) {
+                FloatCode x = floats(u.term);
+                return sigma -> -x.eval(sigma);
+            }
+            throw new IllegalArgumentException("Unknown unary operator " + u.op.val);
+        }
+        throw new IllegalArgumentException("should never reach here");
+    }
+
+    Type typeOf(Expression e) {
+        if (e instanceof Value v)
+            return v.type();
+        if (e instanceof ResolvedVariable v)
+            return v.global ? globals.get(v.offset).t : slots[v.offset];
+        if (e instanceof Binary b)
+            return b.op.opcode.result();
+        if (e instanceof Unary u)
+            return u.op.opcode.result();
+        if (e instanceof Call c)
+            return c.target.t;
+        throw new IllegalArgumentException("should never reach here");
+    }
+
+    private static byte tag(Type t) {
+        if (t == Type.FLOAT)
+            return Memory.FLOAT;
+        if (t == Type.CHAR)
+            return Memory.CHAR;
+        if (t == Type.BOOL)
+            return Memory.BOOL;
+        return Memory.INT;
+    }
+
+    // Semantics.M(Program)과 같은 방식으로 전역과 main 지역변수 할당 후 실행
+    State run() {
+        State sigma = new State();
+        sigma = sigma.allocate(globals);
+        sigma.dlink = sigma.slink = sigma.a;
+        sigma = sigma.allocate(main.function.locals);
+        main.body.run(sigma);
+        sigma = sigma.deallocate(main.function.locals);
+        return sigma;
+    }
+}
@@ -0,0 +1,172 @@
+// ConstantFolding.java
+
+// Constant folding and propagation over the typed Program (after
+// TypeTransformer.T).  F replaces every Binary and Unary whose operands
+// are literals by the Value it computes, and replaces a read of a local
+// variable by the literal last assigned to it, as long as every path
+// to the read assigns that same literal.  Globals are never propagated,
+// since a call may change them.  Integer division by a literal zero is
+// left alone so that it still fails at run time.
+
+import java.util.HashMap;
+import java.util.HashSet;
+
+public class ConstantFolding {
+
+    int folded;     // 리터럴로 바뀐 Binary, Unary 노드 수
+    int propagated; // 리터럴로 바뀐 지역변수 참조 수
+
+    private HashSet<Variable> locals; // 현재 함수의 매개변수와 지역변수
+
+    public static void main(String[] args) {
+        Parser parser = new Parser(new Lexer(args[0]));
+        Program prog = parser.program();
+        StaticTypeCheck.V(prog);
+        ConstantFolding cf = new ConstantFolding();
+        Program out = cf.F(TypeTransformer.T(prog));
+        System.out.println("\n\nFolded AST");
+        out.display();
+        System.out.println("\n" + cf);
+    } //main
+
+    Program F(Program p) {
+        Functions fs = new Functions();
+        for (Function f : p.functions) {
+            locals = new HashSet<>();
+            for (Declaration d : f.params)
+                locals.add(d.v);
+            for (Declaration d : f.locals)
+                locals.add(d.v);
+            Block body = (Block) F(f.body, new HashMap<>());
+            fs.add(new Function(f.t, f.id, f.params, f.locals, body));
+        }
+        return new Program(p.globals, fs);
+    }
+
+    // env: 지금 값이 확실한 지역변수 -> 리터럴, 문장을 지나며 갱신된다
+    Statement F(Statement s, HashMap<Variable, Value> env) {
+        if (s instanceof Skip)
+            return s;
+        if (s instanceof Assignment a) {
+            Expression source = F(a.source, env);
+            bind(a.target, source, env);
+            return new Assignment(a.target, source);
+        }
+        if (s instanceof Conditional c) {
+            Expression test = F(c.test, env);
+            HashMap<Variable, Value> thenEnv = new HashMap<>(env);
+            HashMap<Variable, Value> elseEnv = new HashMap<>(env);
+            Statement thenbranch = F(c.thenbranch, thenEnv);
+            Statement elsebranch = F(c.elsebranch, elseEnv);
+            // 두 갈래에서 같은 리터럴인 변수만 남긴다
+            env.clear();
+            for (Variable v : thenEnv.keySet())
+                if (elseEnv.containsKey(v) && same(thenEnv.get(v), elseEnv.get(v)))
+                    env.put(v, thenEnv.get(v));
+            return new Conditional(test, thenbranch, elsebranch);
+        }
+        if (s instanceof Loop l) {
+            // 몸체에서 대입되는 변수는 반복 전체에서 알 수 없다
+            HashSet<Variable> assigned = new HashSet<>();
+            assigned(l.body, assigned);
+            env.keySet().removeAll(assigned);
+            Expression test = F(l.test, env);
+            Statement body = F(l.body, new HashMap<>(env));
+            return new Loop(test, body);
+        }
+        if (s instanceof Block b) {
+            Block out = new Block();
+            boolean returned = false;
+            for (Statement stmt : b.members) {
+                // Return 뒤의 문장은 실행되지 않으므로 env를 바꾸지 않는다
+                out.members.add(returned ? stmt : F(stmt, env));
+                returned |= stmt instanceof Return;
+            }
+            return out;
+        }
+        if (s instanceof Call c)
+            return new Call(c.name, F(c.args, env));
+        if (s instanceof Return r) {
+            // 인라인된 함수의 Return은 호출한 함수의 지역변수에 대입한다
+            Expression result = F(r.result, env);
+            bind(r.target, result, env);
+            return new Return(r.target, result);
+        }
+        throw new IllegalArgumentException("should never reach here");
+    }
+
+    private void bind(Variable target, Expression source, HashMap<Variable, Value> env) {
+        if (!locals.contains(target))
+            return;
+        if (source instanceof Value v && !v.undef)
+            env.put(target, v);
+        else
+            env.remove(target);
+    }
+
+    Expression F(Expression e, HashMap<Variable, Value> env) {
+        if (e instanceof Value)
+            return e;
+        if (e instanceof Variable v) {
+            Value c = env.get(v);
+            if (c == null)
+                return e;
+            propagated++;
+            return c;
+        }
+        if (e instanceof Binary b) {
+            Expression t1 = F(b.term1, env), t2 = F(b.term2, env);
+            if (t1 instanceof Value v1 && t2 instanceof Value v2 && b.op.opcode != null
+                    && !v1.undef && !v2.undef
+                    && !(b.op.opcode == Opcode.INT_DIV && v2.intValue() == 0)) {
+                folded++;
+                return b.op.opcode.apply(v1, v2);
+            }
+            return new Binary(b.op, t1, t2);
+        }
+        if (e instanceof Unary u) {
+            Expression t = F(u.term, env);
+            if (t instanceof Value v && u.op.opcode != null && !v.undef) {
+                folded++;
+                return u.op.opcode.apply(v);
+            }
+            return new Unary(u.op, t);
+        }
+        if (e instanceof Call c)
+            return new Call(c.name, F(c.args, env));
+        throw new IllegalArgumentException("should never reach here");
+    }
+
+    Expressions F(Expressions es, HashMap<Variable, Value> env) {
+        Expressions out = new Expressions();
+        if (es != null)
+            for (Expression e : es)
+                out.add(F(e, env));
+        return out;
+    }
+
+    // 문장 안에서 대입되는 변수를 모두 모은다
+    static void assigned(Statement s, HashSet<Variable> vars) {
+        if (s instanceof Assignment a)
+            vars.add(a.target);
+        else if (s instanceof Return r)
+            vars.add(r.target);
+        else if (s instanceof Conditional c) {
+            assigned(c.thenbranch, vars);
+            assigned(c.elsebranch, vars);
+        } else if (s instanceof Loop l)
+            assigned(l.body, vars);
+        else if (s instanceof Block b)
+            for (Statement stmt : b.members)
+                assigned(stmt, vars);
+    }
+
+    static boolean same(Value v1, Value v2) {
+        return v1.type() == v2.type() && Bytecode.bits(v1) == Bytecode.bits(v2);
+    }
+
+    @Override
+    public String toString() {
+        return "constant folding: " + folded + " nodes folded, " + propagated + " constants propagated";
+    }
+} // class ConstantFolding
@@ -0,0 +1,162 @@
+// DeadCode.java
+
+// Dead code elimination over the typed Program.  D removes
+//   - statements after a Return that is a direct member of a Block
+//     (Semantics never runs them),
+//   - the branch a Conditional with a literal test never takes,
+//   - Loops whose test is the literal false,
+//   - Skips and empty Blocks, and
+//   - assignments to locals that are never read, when the source is a
+//     literal or a variable (a copy cannot fail); a call source is kept
+//     as a call statement.
+// Nested Blocks without a direct Return are flattened into their parent.
+// D repeats until nothing changes, since removing one assignment can
+// leave another variable unread.
+
+import java.util.HashSet;
+
+public class DeadCode {
+
+    int removed; // 제거된 문장 수
+
+    private HashSet<Variable> locals; // 현재 함수의 매개변수와 지역변수
+    private HashSet<Variable> read;   // 현재 함수에서 읽히는 변수
+
+    public static void main(String[] args) {
+        Parser parser = new Parser(new Lexer(args[0]));
+        Program prog = parser.program();
+        StaticTypeCheck.V(prog);
+        DeadCode dc = new DeadCode();
+        Program out = dc.D(TypeTransformer.T(prog));
+        System.out.println("\n\nAST without dead code");
+        out.display();
+        System.out.println("\n" + dc);
+    } //main
+
+    Program D(Program p) {
+        Functions fs = new Functions();
+        for (Function f : p.functions) {
+            locals = new HashSet<>();
+            for (Declaration d : f.params)
+                locals.add(d.v);
+            for (Declaration d : f.locals)
+                locals.add(d.v);
+            Statement body = f.body;
+            int before;
+            do {
+                before = removed;
+                read = new HashSet<>();
+                reads(body, read);
+                body = D(body);
+            } while (removed != before);
+            if (!(body instanceof Block))
+                body = block(body);
+            fs.add(new Function(f.t, f.id, f.params, f.locals, (Block) body));
+        }
+        return new Program(p.globals, fs);
+    }
+
+    // 제거된 문장은 Skip으로 돌려주고 Block이 버린다
+    Statement D(Statement s) {
+        if (s instanceof Assignment a) {
+            if (!locals.contains(a.target) || read.contains(a.target))
+                return s;
+            if (a.source instanceof Value || a.source instanceof Variable) {
+                removed++;
+                return new Skip();
+            }
+            if (a.source instanceof Call c) {
+                removed++;
+                return c;
+            }
+            return s;
+        }
+        if (s instanceof Conditional c) {
+            if (c.test instanceof BoolValue test) {
+                removed++;
+                Statement branch = D(test.boolValue() ? c.thenbranch : c.elsebranch);
+                // Return이 바깥 Block을 끝내지 않도록 Block으로 감싼다
+                return branch instanceof Return ? block(branch) : branch;
+            }
+            return new Conditional(c.test, D(c.thenbranch), D(c.elsebranch));
+        }
+        if (s instanceof Loop l) {
+            if (l.test instanceof BoolValue test && !test.boolValue()) {
+                removed++;
+                return new Skip();
+            }
+            return new Loop(l.test, D(l.body));
+        }
+        if (s instanceof Block b) {
+            Block out = new Block();
+            for (int i = 0; i < b.members.size(); i++) {
+                Statement m = D(b.members.get(i));
+                if (m instanceof Block nested && !returns(nested))
+                    out.members.addAll(nested.members);
+                else if (!(m instanceof Skip))
+                    out.members.add(m);
+                if (b.members.get(i) instanceof Return) {
+                    removed += b.members.size() - i - 1;
+                    break;
+                }
+            }
+            if (out.members.isEmpty())
+                return new Skip();
+            return out;
+        }
+        return s;
+    }
+
+    private static Block block(Statement s) {
+        Block b = new Block();
+        if (!(s instanceof Skip))
+            b.members.add(s);
+        return b;
+    }
+
+    // Block의 직접 멤버 중 Return이 있으면 그 Block에서 실행이 멈춘다
+    private static boolean returns(Block b) {
+        for (Statement s : b.members)
+            if (s instanceof Return)
+                return true;
+        return false;
+    }
+
+    // 문장 안에서 읽히는 변수를 모두 모은다 (대입 대상은 제외)
+    static void reads(Statement s, HashSet<Variable> vars) {
+        if (s instanceof Assignment a)
+            reads(a.source, vars);
+        else if (s instanceof Return r)
+            reads(r.result, vars);
+        else if (s instanceof Conditional c) {
+            reads(c.test, vars);
+            reads(c.thenbranch, vars);
+            reads(c.elsebranch, vars);
+        } else if (s instanceof Loop l) {
+            reads(l.test, vars);
+            reads(l.body, vars);
+        } else if (s instanceof Block b) {
+            for (Statement stmt : b.members)
+                reads(stmt, vars);
+        } else if (s instanceof Expression e)
+            reads(e, vars);
+    }
+
+    static void reads(Expression e, HashSet<Variable> vars) {
+        if (e instanceof Variable v)
+            vars.add(v);
+        else if (e instanceof Binary b) {
+            reads(b.term1, vars);
+            reads(b.term2, vars);
+        } else if (e instanceof Unary u)
+            reads(u.term, vars);
+        else if (e instanceof Call c && c.args != null)
+            for (Expression arg : c.args)
+                reads(arg, vars);
+    }
+
+    @Override
+    public String toString() {
+        return "dead code: " + removed + " statements removed";
+    }
+} // class DeadCode
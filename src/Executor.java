@@ -0,0 +1,433 @@
+// Executor.java
+
+// Executable tree for a resolved Clite program.  E converts every
+// Statement and Expression into a node that executes or evaluates
+// itself, with its children, memory slots and opcode fixed in final
+// fields, so running the program needs no instanceof dispatch and no
+// name lookups.  The meaning of every node is the same as the
+// corresponding M in Semantics, which remains the reference.
+// With a Tiering, hot functions move to compiled code (see Tiering).
+
+import java.util.HashMap;
+
+public class Executor {
+
+    Declarations globals;
+    FunctionNode main;
+    Tiering tiers; // null이면 인터프리트만 한다
+
+    public static void main(String[] args) {
+        Parser parser = new Parser(new Lexer(args[0]));
+        Program prog = parser.program();
+        StaticTypeCheck.V(prog);
+        State state = E(Resolver.R(TypeTransformer.T(prog))).run();
+        System.out.println("\n\nFinal State");
+        state.display();
+    } //main
+
+    static Executor E(Program p) {
+        return E(p, null);
+    }
+
+    static Executor E(Program p, Memo memo) {
+        return E(p, memo, null);
+    }
+
+    // memo가 있으면 순수 함수 호출 결과를 캐시하고
+    // tiers가 있으면 자주 실행되는 함수를 컴파일된 코드로 바꾼다
+    static Executor E(Program p, Memo memo, Tiering tiers) {
+        // 재귀 호출을 위해 함수 노드를 먼저 모두 만든 뒤 몸체를 변환
+        HashMap<Function, FunctionNode> fns = new HashMap<>();
+        for (Function f : p.functions) {
+            FunctionNode fn = new FunctionNode(f);
+            if (memo != null && memo.isPure(f))
+                fn.memo = memo;
+            fn.tiers = tiers;
+            fns.put(f, fn);
+        }
+        for (Function f : p.functions)
+            fns.get(f).body = E(f.body, fns, fns.get(f));
+        Executor x = new Executor();
+        x.globals = p.globals;
+        x.tiers = tiers;
+        x.main = fns.get(p.functions.findFunction("main"));
+        return x;
+    }
+
+    // owner는 s를 몸체에 가진 함수, 반복 횟수를 센다
+    static Node E(Statement s, HashMap<Function, FunctionNode> fns, FunctionNode owner) {
+        if (s instanceof Skip)
+            return SkipNode.SKIP;
+        if (s instanceof Assignment a) {
+            ResolvedVariable v = (ResolvedVariable) a.target;
+            ExprNode source = E(a.source, fns);
+            if (v.global)
+                return new GlobalAssignNode(v.offset, source);
+            return new LocalAssignNode(v.offset, source);
+        }
+        if (s instanceof Conditional c)
+            return new ConditionalNode(E(c.test, fns), E(c.thenbranch, fns, owner), E(c.elsebranch, fns, owner));
+        if (s instanceof Loop l)
+            return new LoopNode(E(l.test, fns), E(l.body, fns, owner), owner.tiers == null ? null : owner, l);
+        if (s instanceof Block b) {
+            // Semantics처럼 블록은 Return 문에서 끝나므로 그 뒤 문장은 버린다
+            int n = 0;
+            while (n < b.members.size() && !(b.members.get(n++) instanceof Return)) ;
+            Node[] members = new Node[n];
+            for (int i = 0; i < n; i++)
+                members[i] = E(b.members.get(i), fns, owner);
+            return new BlockNode(members);
+        }
+        if (s instanceof Call c)
+            return new CallStatementNode(call(c, fns));
+        if (s instanceof Return r)
+            return new LocalAssignNode(((ResolvedVariable) r.target).offset, E(r.result, fns));
+        throw new IllegalArgumentException("should never reach here");
+    }
+
+    static ExprNode E(Expression e, HashMap<Function, FunctionNode> fns) {
+        if (e instanceof Value v)
+            return new ValueNode(v);
+        if (e instanceof ResolvedVariable v)
+            return v.global ? new GlobalNode(v.offset) : new LocalNode(v.offset);
+        if (e instanceof Binary b)
+            return new BinaryNode(b.op.opcode, E(b.term1, fns), E(b.term2, fns));
+        if (e instanceof Unary u)
+            return new UnaryNode(u.op.opcode, E(u.term, fns));
+        if (e instanceof Call c)
+            return call(c, fns);
+        throw new IllegalArgumentException("should never reach here");
+    }
+
+    private static CallNode call(Call c, HashMap<Function, FunctionNode> fns) {
+        int n = c.args == null ? 0 : c.args.size();
+        ExprNode[] args = new ExprNode[n];
+        for (int i = 0; i < n; i++)
+            args[i] = E(c.args.get(i), fns);
+        return new CallNode(fns.get(c.target), args);
+    }
+
+    // Semantics.M(Program)과 같은 방식으로 전역과 main 지역변수 할당 후 실행
+    State run() {
+        State sigma = new State();
+        sigma = sigma.allocate(globals);
+        sigma.dlink = sigma.slink = sigma.a;
+        sigma = sigma.allocate(main.function.locals);
+        try {
+            main.body.execute(sigma);
+        } finally {
+            if (tiers != null)
+                tiers.shutdown();
+        }
+        sigma = sigma.deallocate(main.function.locals);
+        return sigma;
+    }
+}
+
+abstract class Node {
+    abstract void execute(State sigma);
+}
+
+abstract class ExprNode {
+    abstract Value evaluate(State sigma);
+}
+
+class FunctionNode {
+    final Function function;
+    final int params;
+    final int frameSize;
+    Node body; // 재귀 때문에 나중에 채운다
+    Memo memo; // 순수 함수일 때만
+    Tiering tiers;          // 계층 실행일 때만
+    int count;              // 호출 수 + 반복 수
+    int loops;              // 몸체의 LoopNode 수
+    volatile Jit compiled;  // 백그라운드 컴파일이 끝나면 채워진다
+    private boolean entered;
+
+    // 컴파일된 코드가 있으면 처음 들어갈 때 기록하고 돌려준다
+    Jit compiled() {
+        Jit jit = compiled;
+        if (jit != null && !entered) {
+            entered = true;
+            tiers.entered(this);
+        }
+        return jit;
+    }
+
+    FunctionNode(Function f) {
+        function = f;
+        params = f.params.size();
+        frameSize = Resolver.frameSize(f);
+    }
+}
+
+class SkipNode extends Node {
+    final static SkipNode SKIP = new SkipNode();
+
+    @Override
+    void execute(State sigma) {
+    }
+}
+
+class BlockNode extends Node {
+    private final Node[] members;
+
+    BlockNode(Node[] members) {
+        this.members = members;
+    }
+
+    @Override
+    void execute(State sigma) {
+        for (Node s : members)
+            s.execute(sigma);
+    }
+}
+
+class LocalAssignNode extends Node {
+    private final int offset;
+    private final ExprNode source;
+
+    LocalAssignNode(int offset, ExprNode source) {
+        this.offset = offset;
+        this.source = source;
+    }
+
+    @Override
+    void execute(State sigma) {
+        sigma.mu.set(sigma.dlink + offset, source.evaluate(sigma));
+    }
+}
+
+class GlobalAssignNode extends Node {
+    private final int index;
+    private final ExprNode source;
+
+    GlobalAssignNode(int index, ExprNode source) {
+        this.index = index;
+        this.source = source;
+    }
+
+    @Override
+    void execute(State sigma) {
+        sigma.mu.set(index, source.evaluate(sigma));
+    }
+}
+
+class ConditionalNode extends Node {
+    private final ExprNode test;
+    private final Node thenbranch, elsebranch;
+
+    ConditionalNode(ExprNode test, Node thenbranch, Node elsebranch) {
+        this.test = test;
+        this.thenbranch = thenbranch;
+        this.elsebranch = elsebranch;
+    }
+
+    @Override
+    void execute(State sigma) {
+        if (test.evaluate(sigma).boolValue())
+            thenbranch.execute(sigma);
+        else
+            elsebranch.execute(sigma);
+    }
+}
+
+class LoopNode extends Node {
+    private final ExprNode test;
+    private final Node body;
+    final FunctionNode owner;   // 계층 실행일 때만
+    final Loop loop;            // 루프를 컴파일할 때 쓰는 원래 문장
+    final int index;            // owner 안에서 몇 번째 루프인지
+    int count;                  // 반복 수
+    volatile Jit compiled;      // 백그라운드 컴파일이 끝나면 채워진다
+    boolean entered;
+
+    LoopNode(ExprNode test, Node body, FunctionNode owner, Loop loop) {
+        this.test = test;
+        this.body = body;
+        this.owner = owner;
+        this.loop = loop;
+        index = owner == null ? 0 : owner.loops++;
+    }
+
+    @Override
+    void execute(State sigma) {
+        while (test.evaluate(sigma).boolValue()) {
+            body.execute(sigma);
+            // 되돌아가는 지점에서 컴파일된 루프로 옮겨 가면 거기서 끝까지 실행된다
+            if (owner != null && owner.tiers.backEdge(this, sigma))
+                return;
+        }
+    }
+}
+
+class CallStatementNode extends Node {
+    private final CallNode call;
+
+    CallStatementNode(CallNode call) {
+        this.call = call;
+    }
+
+    @Override
+    void execute(State sigma) {
+        call.evaluate(sigma);
+    }
+}
+
+class ValueNode extends ExprNode {
+    private final Value value;
+
+    ValueNode(Value value) {
+        this.value = value;
+    }
+
+    @Override
+    Value evaluate(State sigma) {
+        return value;
+    }
+}
+
+class LocalNode extends ExprNode {
+    final int offset;
+
+    LocalNode(int offset) {
+        this.offset = offset;
+    }
+
+    @Override
+    Value evaluate(State sigma) {
+        return sigma.mu.get(sigma.dlink + offset);
+    }
+}
+
+class GlobalNode extends ExprNode {
+    final int index;
+
+    GlobalNode(int index) {
+        this.index = index;
+    }
+
+    @Override
+    Value evaluate(State sigma) {
+        return sigma.mu.get(index);
+    }
+}
+
+class BinaryNode extends ExprNode {
+    private final Opcode op;
+    private final ExprNode term1, term2;
+
+    BinaryNode(Opcode op, ExprNode term1, ExprNode term2) {
+        this.op = op;
+        this.term1 = term1;
+        this.term2 = term2;
+    }
+
+    @Override
+    Value evaluate(State sigma) {
+        Value v1 = term1.evaluate(sigma);
+        Value v2 = term2.evaluate(sigma);
+        StaticTypeCheck.check(v1.isUndef() || v2.isUndef(), "reference to undef value");
+        return op.apply(v1, v2);
+    }
+}
+
+class UnaryNode extends ExprNode {
+    private final Opcode op;
+    private final ExprNode term;
+
+    UnaryNode(Opcode op, ExprNode term) {
+        this.op = op;
+        this.term = term;
+    }
+
+    @Override
+    Value evaluate(State sigma) {
+        Value v = term.evaluate(sigma);
+        StaticTypeCheck.check(v.isUndef(), "reference to undef value");
+        return op.apply(v);
+    }
+}
+
+class CallNode extends ExprNode {
+    private final FunctionNode callee;
+    private final ExprNode[] args;
+
+    // 호출 지점 캐시: 링크할 때 한 번 정해 두는 대상의 프레임 배치와 인수 출처
+    private final int params, frameSize, result;
+    private final Memo memo;
+    private final boolean tiered;
+    private final boolean[] local;  // 인수가 지역변수면 참
+    private final int[] slot;       // 인수가 변수면 그 슬롯 (지역은 dlink 기준), 아니면 -1
+
+    CallNode(FunctionNode callee, ExprNode[] args) {
+        this.callee = callee;
+        this.args = args;
+        params = callee.params;
+        frameSize = callee.frameSize;
+        result = frameSize - 1;
+        memo = callee.memo;
+        tiered = callee.tiers != null;
+        local = new boolean[args.length];
+        slot = new int[args.length];
+        for (int i = 0; i < args.length; i++) {
+            slot[i] = -1;
+            if (args[i] instanceof LocalNode l) {
+                local[i] = true;
+                slot[i] = l.offset;
+            } else if (args[i] instanceof GlobalNode g)
+                slot[i] = g.index;
+        }
+    }
+
+    // Semantics.addFrame/removeFrame과 같은 프레임 배치
+    // 변수 인수는 Value를 만들지 않고 태그와 비트를 그대로 옮기고
+    // 프레임의 나머지는 한 번에 확보한 뒤 undef로 표시한다
+    @Override
+    Value evaluate(State sigma) {
+        int dlink = sigma.dlink;
+        int base = sigma.a;
+        Memory mu = sigma.mu;
+        for (int i = 0; i < args.length; i++) {
+            int from = slot[i];
+            if (from < 0)
+                sigma.push(args[i].evaluate(sigma));
+            else {
+                if (local[i])
+                    from += dlink;
+                sigma.push(mu.tag(from), mu.bits(from));
+            }
+        }
+        Memo.Key key = null;
+        if (memo != null) {
+            key = memo.key(callee.function, mu, base, params);
+            Value v = memo.get(key);
+            if (v != null) {
+                sigma.a = base;
+                return v;
+            }
+        }
+        Value v;
+        Jit jit = tiered ? callee.compiled() : null;
+        if (jit != null) {
+            // 컴파일된 코드는 Java 스택에 프레임을 두므로 인수만 넘기고 걷어낸다
+            v = Bytecode.value(jit.invoke(callee.function, mu, base), callee.function.t);
+        } else {
+            if (tiered)
+                callee.tiers.count(callee);
+            mu.ensure(base + frameSize);
+            for (int i = base + params; i < base + frameSize; i++)
+                mu.mark(i, Memory.UNDEF);
+            sigma.a = base + frameSize;
+            sigma.dlink = base;
+            callee.body.execute(sigma);
+            v = mu.get(base + result);
+            sigma.dlink = dlink;
+        }
+        // 프레임 위의 슬롯은 다음 호출이 다시 표시하므로 스택 꼭대기만 되돌린다
+        sigma.a = base;
+        if (key != null)
+            memo.put(key, v);
+        return v;
+    }
+}
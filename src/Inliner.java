@@ -0,0 +1,408 @@
+// Inliner.java
+
+// Function inlining over the typed Program.  I replaces a call to a
+// small function that is not recursive by a copy of its body, so that
+// Semantics needs no frame for it.  The callee's parameters, locals and
+// return variable are renamed to fresh locals _i<k>_<name> of the
+// caller, where k numbers the call site, and a Return in the copy
+// assigns _i<k>_<callee> just like it assigns the return slot.  The
+// copy is placed before the statement that contains the call:
+//   x = f(a)  =>  { _i0_p = a; _i0_l = undef; _i0_f = undef; body' } x = _i0_f;
+// Locals and the return variable are reset to undef, since every call
+// starts with a fresh frame.  body' stays a Block of its own, so a
+// Return in it still ends only the copy.  A call that is the whole
+// source of an Assignment or Return, the whole test of a Conditional
+// or a call statement is always evaluated first, so any callee can be
+// inlined there.  A call nested in a larger expression is inlined only
+// when the callee is pure (see Purity) and its arguments read no global
+// and call no function, since the copy now runs before the rest of the
+// expression.  Calls in a Loop test are never inlined.  A callee is
+// small when its body, after inlining its own calls, has at most
+// clite.inline nodes (Statements and Expressions).
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+
+public class Inliner {
+
+    final static int SIZE = Integer.getInteger("clite.inline", 32);
+
+    int inlined;    // 인라인한 호출 수
+    int sites;      // 살펴본 호출 수
+    final ArrayList<String> decisions = new ArrayList<>(); // 호출마다 결정과 그 이유
+
+    private Functions functions;
+    private HashSet<Function> pure;
+    private HashSet<Function> recursive;                            // 자기 자신에게 돌아오는 함수
+    private final HashMap<Function, Function> done = new HashMap<>(); // 원래 함수 -> 인라인한 함수
+    private Function caller;                // 현재 함수
+    private HashSet<Variable> locals;       // 현재 함수의 매개변수, 지역변수, 반환 변수
+    private Declarations temps;             // 현재 함수에 새로 만든 지역변수
+
+    public static void main(String[] args) {
+        Parser parser = new Parser(new Lexer(args[0]));
+        Program prog = parser.program();
+        StaticTypeCheck.V(prog);
+        Inliner in = new Inliner();
+        Program out = in.I(TypeTransformer.T(prog));
+        System.out.println("\n\nAST after inlining");
+        out.display();
+        System.out.println("\n" + in);
+    } //main
+
+    Program I(Program p) {
+        functions = p.functions;
+        pure = Purity.P(p);
+        recursive = recursive(p.functions);
+        Functions fs = new Functions();
+        for (Function f : p.functions)
+            fs.add(I(f));
+        return new Program(p.globals, fs);
+    }
+
+    // 호출되는 함수부터 인라인하므로 복사되는 몸체에는 인라인이 끝나 있다
+    private Function I(Function f) {
+        Function out = done.get(f);
+        if (out != null)
+            return out;
+        HashSet<Function> callees = new HashSet<>();
+        calls(f.body, callees);
+        for (Function g : callees)
+            if (!recursive.contains(g))
+                I(g);
+        caller = f;
+        locals = new HashSet<>();
+        for (Declaration d : f.params)
+            locals.add(d.v);
+        for (Declaration d : f.locals)
+            locals.add(d.v);
+        locals.add(new Variable(f.id));
+        temps = new Declarations();
+        Block body = block(I(f.body));
+        Declarations fl = new Declarations();
+        fl.addAll(f.locals);
+        fl.addAll(temps);
+        out = new Function(f.t, f.id, f.params, fl, body);
+        done.put(f, out);
+        return out;
+    }
+
+    // 문장 하나를 인라인한 몸체와 그 문장으로 바꾼다
+    private ArrayList<Statement> I(Statement s) {
+        ArrayList<Statement> out = new ArrayList<>();
+        if (s instanceof Skip)
+            out.add(s);
+        else if (s instanceof Assignment a)
+            out.add(new Assignment(a.target, I(a.source, out, true)));
+        else if (s instanceof Return r)
+            out.add(new Return(r.target, I(r.result, out, true)));
+        else if (s instanceof Conditional c) {
+            Expression test = I(c.test, out, true);
+            out.add(new Conditional(test, one(I(c.thenbranch)), one(I(c.elsebranch))));
+        } else if (s instanceof Loop l) {
+            skip(l.test);
+            out.add(new Loop(l.test, one(I(l.body))));
+        } else if (s instanceof Block b) {
+            // Return이 Block의 직접 멤버로 남도록 펼쳐 넣는다
+            Block block = new Block();
+            for (Statement stmt : b.members)
+                block.members.addAll(I(stmt));
+            out.add(block);
+        } else if (s instanceof Call c) {
+            Expression e = I(c, out, true);
+            if (e instanceof Call call)
+                out.add(call);
+        } else
+            throw new IllegalArgumentException("should never reach here");
+        return out;
+    }
+
+    // whole이 참이면 e가 문장에서 가장 먼저 계산되는 식 전체다
+    private Expression I(Expression e, ArrayList<Statement> out, boolean whole) {
+        if (e instanceof Value || e instanceof Variable)
+            return e;
+        if (e instanceof Binary b)
+            return new Binary(b.op, I(b.term1, out, false), I(b.term2, out, false));
+        if (e instanceof Unary u)
+            return new Unary(u.op, I(u.term, out, false));
+        if (e instanceof Call c) {
+            Expressions args = new Expressions();
+            if (c.args != null)
+                for (Expression arg : c.args)
+                    args.add(I(arg, out, false));
+            Function callee = functions.findFunction(c.name);
+            String reason = reason(callee, args, whole);
+            sites++;
+            if (reason != null) {
+                decisions.add(caller.id + ": " + c.name + " not inlined, " + reason);
+                return new Call(c.name, args);
+            }
+            return inline(done.get(callee), args, out);
+        }
+        throw new IllegalArgumentException("should never reach here");
+    }
+
+    // 인라인하지 않는 이유, 인라인하면 null
+    private String reason(Function callee, Expressions args, boolean whole) {
+        if (recursive.contains(callee))
+            return "recursive";
+        callee = done.get(callee);
+        int size = size(callee.body);
+        if (size > SIZE)
+            return "too large (" + size + " nodes)";
+        if (!whole) {
+            if (!pure.contains(functions.findFunction(callee.id)))
+                return "impure callee inside an expression";
+            for (Expression arg : args)
+                if (!local(arg))
+                    return "argument reads a global or calls a function";
+        }
+        HashSet<Variable> vars = new HashSet<>();
+        DeadCode.reads(callee.body, vars);
+        ConstantFolding.assigned(callee.body, vars);
+        for (Variable v : vars)
+            if (global(callee, v) && locals.contains(v))
+                return "global " + v + " is hidden by a local";
+        return null;
+    }
+
+    private Expression inline(Function callee, Expressions args, ArrayList<Statement> out) {
+        int k = inlined++;
+        HashMap<Variable, Variable> names = new HashMap<>();
+        Block copy = new Block();
+        for (int i = 0; i < callee.params.size(); i++) {
+            Declaration d = callee.params.get(i);
+            copy.members.add(new Assignment(temp(k, d, names), args.get(i)));
+        }
+        for (Declaration d : callee.locals)
+            copy.members.add(new Assignment(temp(k, d, names), Value.mkValue(d.t)));
+        Variable result = null;
+        if (callee.t != Type.VOID) {
+            result = temp(k, new Declaration(new Variable(callee.id), callee.t), names);
+            copy.members.add(new Assignment(result, Value.mkValue(callee.t)));
+        }
+        copy.members.add(rename(callee.body, names));
+        out.add(copy);
+        decisions.add(caller.id + ": " + callee.id + " inlined as _i" + k
+                + " (" + size(callee.body) + " nodes)");
+        return result;
+    }
+
+    private Variable temp(int k, Declaration d, HashMap<Variable, Variable> names) {
+        Variable v = new Variable("_i" + k + "_" + d.v);
+        temps.add(new Declaration(v, d.t));
+        locals.add(v);
+        names.put(d.v, v);
+        return v;
+    }
+
+    // Loop 테스트의 호출은 반복마다 계산되므로 인라인하지 않는다
+    private void skip(Expression e) {
+        if (e instanceof Binary b) {
+            skip(b.term1);
+            skip(b.term2);
+        } else if (e instanceof Unary u)
+            skip(u.term);
+        else if (e instanceof Call c) {
+            if (c.args != null)
+                for (Expression arg : c.args)
+                    skip(arg);
+            sites++;
+            decisions.add(caller.id + ": " + c.name + " not inlined, loop test");
+        }
+    }
+
+    // 지역변수만 읽고 함수를 호출하지 않으면 참
+    private boolean local(Expression e) {
+        if (e instanceof Value)
+            return true;
+        if (e instanceof Variable v)
+            return locals.contains(v);
+        if (e instanceof Binary b)
+            return local(b.term1) && local(b.term2);
+        if (e instanceof Unary u)
+            return local(u.term);
+        return false;
+    }
+
+    private static boolean global(Function f, Variable v) {
+        if (v.toString().equals(f.id))
+            return false;
+        for (Declaration d : f.params)
+            if (d.v.equals(v))
+                return false;
+        for (Declaration d : f.locals)
+            if (d.v.equals(v))
+                return false;
+        return true;
+    }
+
+    private static Statement one(ArrayList<Statement> ss) {
+        if (ss.size() == 1)
+            return ss.get(0);
+        Block b = new Block();
+        b.members.addAll(ss);
+        return b;
+    }
+
+    private static Block block(ArrayList<Statement> ss) {
+        Statement s = one(ss);
+        if (s instanceof Block b)
+            return b;
+        Block b = new Block();
+        b.members.add(s);
+        return b;
+    }
+
+    // 피호출 함수의 변수를 새 지역변수로 바꾼 복사본
+    private static Statement rename(Statement s, HashMap<Variable, Variable> names) {
+        if (s instanceof Skip)
+            return s;
+        if (s instanceof Assignment a)
+            return new Assignment(rename(a.target, names), rename(a.source, names));
+        if (s instanceof Return r)
+            return new Return(rename(r.target, names), rename(r.result, names));
+        if (s instanceof Conditional c)
+            return new Conditional(rename(c.test, names),
+                    rename(c.thenbranch, names), rename(c.elsebranch, names));
+        if (s instanceof Loop l)
+            return new Loop(rename(l.test, names), rename(l.body, names));
+        if (s instanceof Block b) {
+            Block out = new Block();
+            for (Statement stmt : b.members)
+                out.members.add(rename(stmt, names));
+            return out;
+        }
+        if (s instanceof Call c)
+            return rename((Expression) c, names);
+        throw new IllegalArgumentException("should never reach here");
+    }
+
+    private static Expression rename(Expression e, HashMap<Variable, Variable> names) {
+        if (e instanceof Value)
+            return e;
+        if (e instanceof Variable v)
+            return rename(v, names);
+        if (e instanceof Binary b)
+            return new Binary(b.op, rename(b.term1, names), rename(b.term2, names));
+        if (e instanceof Unary u)
+            return new Unary(u.op, rename(u.term, names));
+        if (e instanceof Call c) {
+            Expressions args = new Expressions();
+            if (c.args != null)
+                for (Expression arg : c.args)
+                    args.add(rename(arg, names));
+            return new Call(c.name, args);
+        }
+        throw new IllegalArgumentException("should never reach here");
+    }
+
+    private static Variable rename(Variable v, HashMap<Variable, Variable> names) {
+        Variable w = names.get(v);
+        return w == null ? v : w;
+    }
+
+    // 문장과 식 노드 수
+    static int size(Statement s) {
+        if (s instanceof Assignment a)
+            return 1 + size(a.source);
+        if (s instanceof Return r)
+            return 1 + size(r.result);
+        if (s instanceof Conditional c)
+            return 1 + size(c.test) + size(c.thenbranch) + size(c.elsebranch);
+        if (s instanceof Loop l)
+            return 1 + size(l.test) + size(l.body);
+        if (s instanceof Block b) {
+            int n = 1;
+            for (Statement stmt : b.members)
+                n += size(stmt);
+            return n;
+        }
+        if (s instanceof Call c)
+            return size((Expression) c);
+        return 1;
+    }
+
+    static int size(Expression e) {
+        if (e instanceof Binary b)
+            return 1 + size(b.term1) + size(b.term2);
+        if (e instanceof Unary u)
+            return 1 + size(u.term);
+        if (e instanceof Call c) {
+            int n = 1;
+            if (c.args != null)
+                for (Expression arg : c.args)
+                    n += size(arg);
+            return n;
+        }
+        return 1;
+    }
+
+    // 문장 안에서 호출되는 함수를 모두 모은다
+    private void calls(Statement s, HashSet<Function> callees) {
+        if (s instanceof Assignment a)
+            calls(a.source, callees);
+        else if (s instanceof Return r)
+            calls(r.result, callees);
+        else if (s instanceof Conditional c) {
+            calls(c.test, callees);
+            calls(c.thenbranch, callees);
+            calls(c.elsebranch, callees);
+        } else if (s instanceof Loop l) {
+            calls(l.test, callees);
+            calls(l.body, callees);
+        } else if (s instanceof Block b)
+            for (Statement stmt : b.members)
+                calls(stmt, callees);
+        else if (s instanceof Call c)
+            calls((Expression) c, callees);
+    }
+
+    private void calls(Expression e, HashSet<Function> callees) {
+        if (e instanceof Binary b) {
+            calls(b.term1, callees);
+            calls(b.term2, callees);
+        } else if (e instanceof Unary u)
+            calls(u.term, callees);
+        else if (e instanceof Call c) {
+            callees.add(functions.findFunction(c.name));
+            if (c.args != null)
+                for (Expression arg : c.args)
+                    calls(arg, callees);
+        }
+    }
+
+    // 호출 그래프에서 자기 자신에게 돌아올 수 있는 함수
+    private HashSet<Function> recursive(Functions fs) {
+        HashMap<Function, HashSet<Function>> graph = new HashMap<>();
+        for (Function f : fs) {
+            HashSet<Function> callees = new HashSet<>();
+            calls(f.body, callees);
+            graph.put(f, callees);
+        }
+        HashSet<Function> out = new HashSet<>();
+        for (Function f : fs) {
+            HashSet<Function> seen = new HashSet<>();
+            ArrayList<Function> work = new ArrayList<>(graph.get(f));
+            while (!work.isEmpty()) {
+                Function g = work.remove(work.size() - 1);
+                if (g == f) {
+                    out.add(f);
+                    break;
+                }
+                if (seen.add(g))
+                    work.addAll(graph.get(g));
+            }
+        }
+        return out;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder s = new StringBuilder("inlining: " + inlined + " of " + sites + " call sites inlined");
+        for (String d : decisions)
+            s.append("\n    ").append(d);
+        return s.toString();
+    }
+} // class Inliner
@@ -0,0 +1,950 @@
+// Jit.java
+
+// Compiles a resolved Clite program (after TypeTransformer.T and
+// Resolver.R) into one JVM class, defined in process as a hidden class,
+// so HotSpot compiles Clite functions like any other Java code.
+//   global   -> static fields  name (I or F) and $name (Z, defined)
+//   function -> static method  (value, defined)* per param -> J
+//   slot k   -> JVM locals     2k (I or F) and 2k+1 (defined)
+// int, char and bool are JVM ints, float is a JVM float.  A function
+// returns its return slot encoded as in Bytecode: the value bits, or
+// Bytecode.UNDEF if the slot was never assigned.
+// J(p, f) compiles only f and the functions it can reach, for the
+// tiered Executor; invoke runs such a function on arguments taken from
+// the interpreter's Memory, copying in the globals the class uses
+// before the call and copying them back after it.  J(p, f, l) compiles
+// one Loop of f for on-stack replacement: $osr(bits, defined) loads
+// the frame slots from two arrays, runs the loop from its test to the
+// end and stores the slots back, and osr moves an interpreter frame in
+// and out of it.  Code compiled for the Executor counts its frames in
+// slots on top of the interpreter's stack, so it overflows at
+// Memory.LIMIT like the interpreter.
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+
+public class Jit {
+    final static String CLASS = "CliteProgram";
+
+    Declarations globals;
+    Functions functions;        // 컴파일한 함수
+    MethodHandles.Lookup program;
+    int compiled;               // 컴파일한 함수 수
+
+    // 인터프리터에서 들어올 때 쓰는 핸들 (J(p, f)로 만든 경우)
+    private boolean[] used;     // 컴파일한 코드가 읽거나 쓰는 전역
+    private MethodHandle[] values, flags, setValues, setFlags;
+    private final HashMap<Function, MethodHandle> entries = new HashMap<>();
+    private MethodHandle osr;   // J(p, f, l)로 만든 경우
+    private boolean tiered;     // 인터프리터와 함께 쓰므로 프레임을 Memory.LIMIT에 대어 센다
+
+    // 티어링된 코드가 쓰는 스택 슬롯 수: 인터프리터 스택 위에 컴파일된 프레임을 더한다
+    private static int sp;
+
+    // 함수별 컴파일 상태
+    private final ClassFile cf = new ClassFile();
+    private Code code;
+    private Type[] slots;
+    private int scratch;
+
+    public static void main(String[] args) {
+        Parser parser = new Parser(new Lexer(args[0]));
+        Program prog = parser.program();
+        StaticTypeCheck.V(prog);
+        State state = J(Resolver.R(TypeTransformer.T(prog))).run();
+        System.out.println("\n\nFinal State");
+        state.display();
+    } //main
+
+    static Jit J(Program p) {
+        return J(p, p.functions, null, null, false);
+    }
+
+    // root와 root에서 호출할 수 있는 함수만 컴파일
+    static Jit J(Program p, Function root) {
+        HashSet<Function> reach = new HashSet<>();
+        reach(root, reach);
+        return link(p, J(p, select(p, reach), null, null, true));
+    }
+
+    // 함수 f 안의 루프 l과 l에서 호출할 수 있는 함수만 컴파일
+    static Jit J(Program p, Function f, Loop l) {
+        HashSet<Function> reach = new HashSet<>();
+        calls(l, reach);
+        Jit j = link(p, J(p, select(p, reach), f, l, true));
+        try {
+            j.osr = j.program.findStatic(j.program.lookupClass(), "$osr",
+                    MethodType.methodType(void.class, long[].class, boolean[].class));
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException(e);
+        }
+        return j;
+    }
+
+    private static Functions select(Program p, HashSet<Function> reach) {
+        Functions fs = new Functions();
+        for (Function f : p.functions)
+            if (reach.contains(f))
+                fs.add(f);
+        return fs;
+    }
+
+    // 인터프리터에서 들어올 때 쓸 전역 접근자와 함수 핸들을 찾는다
+    private static Jit link(Program p, Jit j) {
+        Functions fs = j.functions;
+        try {
+            for (int i = 0; i < p.globals.size(); i++) {
+                if (!j.used[i])
+                    continue;
+                Class<?> c = j.program.lookupClass();
+                Declaration d = p.globals.get(i);
+                Class<?> t = isFloat(d.t) ? float.class : int.class;
+                j.values[i] = j.program.findStaticGetter(c, d.v.toString(), t);
+                j.flags[i] = j.program.findStaticGetter(c, "$" + d.v, boolean.class);
+                j.setValues[i] = j.program.findStaticSetter(c, d.v.toString(), t);
+                j.setFlags[i] = j.program.findStaticSetter(c, "$" + d.v, boolean.class);
+            }
+            for (Function f : fs) {
+                MethodHandle h = j.program.findStatic(j.program.lookupClass(), f.id,
+                        MethodType.fromMethodDescriptorString(descriptor(f), null));
+                j.entries.put(f, h.asSpreader(Object[].class, 2 * f.params.size()));
+            }
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException(e);
+        }
+        return j;
+    }
+
+    private static Jit J(Program p, Functions fs, Function owner, Loop loop, boolean tiered) {
+        Jit j = new Jit();
+        j.tiered = tiered;
+        j.functions = fs;
+        j.globals = p.globals;
+        int n = p.globals.size();
+        j.used = new boolean[n];
+        j.values = new MethodHandle[n];
+        j.flags = new MethodHandle[n];
+        j.setValues = new MethodHandle[n];
+        j.setFlags = new MethodHandle[n];
+        for (Declaration d : p.globals) {
+            j.cf.field(d.v.toString(), descriptor(d.t));
+            j.cf.field("$" + d.v, "Z");
+        }
+        for (Function f : fs)
+            j.J(f);
+        if (loop != null)
+            j.osr(owner, loop);
+        j.compiled = fs.size();
+        try {
+            j.program = MethodHandles.lookup().defineHiddenClass(j.cf.toBytes(CLASS), true);
+        } catch (IllegalAccessException e) {
+            throw new IllegalStateException(e);
+        }
+        return j;
+    }
+
+    private static void reach(Function f, HashSet<Function> reach) {
+        if (reach.add(f))
+            calls(f.body, reach);
+    }
+
+    private static void calls(Statement s, HashSet<Function> reach) {
+        if (s instanceof Assignment a)
+            calls(a.source, reach);
+        else if (s instanceof Return r)
+            calls(r.result, reach);
+        else if (s instanceof Conditional c) {
+            calls(c.test, reach);
+            calls(c.thenbranch, reach);
+            calls(c.elsebranch, reach);
+        } else if (s instanceof Loop l) {
+            calls(l.test, reach);
+            calls(l.body, reach);
+        } else if (s instanceof Block b) {
+            for (Statement stmt : b.members)
+                calls(stmt, reach);
+        } else if (s instanceof Call c)
+            calls((Expression) c, reach);
+    }
+
+    private static void calls(Expression e, HashSet<Function> reach) {
+        if (e instanceof Binary b) {
+            calls(b.term1, reach);
+            calls(b.term2, reach);
+        } else if (e instanceof Unary u)
+            calls(u.term, reach);
+        else if (e instanceof Call c) {
+            if (c.args != null)
+                for (Expression arg : c.args)
+                    calls(arg, reach);
+            reach(c.target, reach);
+        }
+    }
+
+    private void J(Function f) {
+        int frame = frame(f);
+        if (tiered) {
+            intConstant(frame);
+            invoke("Jit", "push", "(I)V", -1);
+        }
+        // 매개변수가 아닌 슬롯은 undef(정의 플래그 0)로 시작
+        for (int k = f.params.size(); k < frame; k++) {
+            code.op(isFloat(slots[k]) ? 0x0b : 0x03, 1);    // fconst_0 / iconst_0
+            code.local(isFloat(slots[k]) ? 0x38 : 0x36, -1, 2 * k);
+            code.op(0x03, 1);
+            code.local(0x36, -1, 2 * k + 1);
+        }
+        J(f.body);
+        // 반환 슬롯을 long으로 인코딩해 반환
+        int ret = frame - 1;
+        code.local(isFloat(slots[ret]) ? 0x17 : 0x15, 1, 2 * ret);
+        code.local(0x15, 1, 2 * ret + 1);
+        invoke("Jit", "ret", isFloat(slots[ret]) ? "(FZ)J" : "(IZ)J", 0);
+        if (tiered) {
+            intConstant(frame);
+            invoke("Jit", "pop", "(I)V", -1);
+        }
+        code.op(0xad, -2);  // lreturn
+        cf.method(f.id, descriptor(f), code);
+    }
+
+    // 함수 f의 슬롯 타입을 정하고 새 메소드를 시작한다
+    private int frame(Function f) {
+        int frame = Resolver.frameSize(f);
+        code = new Code();
+        slots = slots(f);
+        scratch = 2 * frame;
+        code.locals = scratch + 2;
+        return frame;
+    }
+
+    private static Type[] slots(Function f) {
+        int frame = Resolver.frameSize(f);
+        Type[] slots = new Type[frame];
+        for (int i = 0; i < f.params.size(); i++)
+            slots[i] = f.params.get(i).t;
+        for (int i = 0; i < f.locals.size(); i++)
+            slots[f.params.size() + i] = f.locals.get(i).t;
+        slots[frame - 1] = f.t;
+        return slots;
+    }
+
+    // $osr(long[] bits, boolean[] defined): 배열의 슬롯으로 루프를 테스트부터 끝까지 실행하고 되돌려 쓴다
+    private void osr(Function f, Loop l) {
+        int frame = frame(f);
+        int bits = scratch + 2, defined = scratch + 3;
+        code.locals = scratch + 4;
+        // 인수가 슬롯 0, 1과 겹치므로 먼저 옮긴다
+        code.op(0x2a, 1);   // aload_0
+        code.local(0x3a, -1, bits);
+        code.op(0x2b, 1);   // aload_1
+        code.local(0x3a, -1, defined);
+        for (int k = 0; k < frame; k++) {
+            boolean f32 = isFloat(slots[k]);
+            code.local(0x19, 1, bits);
+            intConstant(k);
+            code.op(0x2f, 0);   // laload
+            code.op(0x88, -1);  // l2i
+            if (f32)
+                invoke("java/lang/Float", "intBitsToFloat", "(I)F", 0);
+            code.local(f32 ? 0x38 : 0x36, -1, 2 * k);
+            code.local(0x19, 1, defined);
+            intConstant(k);
+            code.op(0x33, -1);  // baload
+            code.local(0x36, -1, 2 * k + 1);
+        }
+        J(l);
+        for (int k = 0; k < frame; k++) {
+            boolean f32 = isFloat(slots[k]);
+            code.local(0x19, 1, bits);
+            intConstant(k);
+            code.local(f32 ? 0x17 : 0x15, 1, 2 * k);
+            if (f32)
+                invoke("java/lang/Float", "floatToRawIntBits", "(F)I", 0);
+            code.op(0x85, 1);   // i2l
+            code.op(0x50, -4);  // lastore
+            code.local(0x19, 1, defined);
+            intConstant(k);
+            code.local(0x15, 1, 2 * k + 1);
+            code.op(0x54, -3);  // bastore
+        }
+        code.op(0xb1, 0);       // return
+        cf.method("$osr", "([J[Z)V", code);
+    }
+
+    void J(Statement s) {
+        if (s instanceof Skip)
+            return;
+        if (s instanceof Assignment a) {
+            J(a.source, true);
+            store((ResolvedVariable) a.target);
+            return;
+        }
+        if (s instanceof Conditional c) {
+            test(c.test);
+            int toElse = code.label(), toEnd = code.label();
+            code.jump(0x99, -1, toElse);    // ifeq
+            J(c.thenbranch);
+            code.jump(0xa7, 0, toEnd);      // goto
+            code.bind(toElse);
+            J(c.elsebranch);
+            code.bind(toEnd);
+            return;
+        }
+        if (s instanceof Loop l) {
+            int top = code.label(), toEnd = code.label();
+            code.bind(top);
+            test(l.test);
+            code.jump(0x99, -1, toEnd);
+            J(l.body);
+            code.jump(0xa7, 0, top);
+            code.bind(toEnd);
+            return;
+        }
+        if (s instanceof Block b) {
+            // Semantics처럼 블록은 Return 문에서 끝난다
+            for (Statement stmt : b.members) {
+                J(stmt);
+                if (stmt instanceof Return)
+                    return;
+            }
+            return;
+        }
+        if (s instanceof Call c) {
+            call(c);
+            code.op(0x58, -2);  // pop2
+            return;
+        }
+        if (s instanceof Return r) {
+            J(r.result, true);
+            store((ResolvedVariable) r.target);
+            return;
+        }
+        throw new IllegalArgumentException("should never reach here");
+    }
+
+    // copy가 참이면 (값, 정의 플래그)를, 거짓이면 undef를 검사한 값만 스택에 넣는다
+    void J(Expression e, boolean copy) {
+        if (e instanceof Value v) {
+            if (v.undef) {  // 인라인한 함수의 지역변수를 다시 undef로 만든다
+                if (isFloat(v.type()))
+                    floatConstant(0);
+                else
+                    intConstant(0);
+                code.op(0x03, 1);   // iconst_0
+                if (!copy)
+                    invoke("Jit", "defined", "(Z)V", -1);
+                return;
+            }
+            if (v.type() == Type.FLOAT)
+                floatConstant(v.floatValue());
+            else
+                intConstant((int) Bytecode.bits(v));
+        } else if (e instanceof ResolvedVariable v) {
+            boolean f = isFloat(typeOf(v));
+            if (copy) {
+                load(v, f);
+                loadDefined(v);
+                return;
+            }
+            loadDefined(v);
+            invoke("Jit", "defined", "(Z)V", -1);
+            load(v, f);
+        } else if (e instanceof Binary b) {
+            // applyBinary처럼 둘 다 undef일 때만 오류, 하나만 undef면 기본값으로 계산
+            boolean u1 = Bytecode.undefined(b.term1), u2 = Bytecode.undefined(b.term2);
+            int d = Bytecode.base(b.op), flag = -1;
+            J(b.term1, u1);
+            if (u1 && u2) {     // 첫 피연산자의 정의 플래그를 남겨 둔다
+                flag = code.locals++;
+                code.op(0x59, 1);   // dup
+                code.local(0x36, -1, flag);
+            }
+            if (u1)
+                orElse(b.term1, d);
+            J(b.term2, u2);
+            if (u1 && u2) {
+                code.op(0x59, 1);
+                code.local(0x15, 1, flag);
+                invoke("Jit", "defined", "(ZZ)V", -2);
+            }
+            if (u2)
+                orElse(b.term2, d);
+            binary(b.op.opcode);
+        } else if (e instanceof Unary u) {
+            J(u.term, false);
+            unary(u.op.opcode);
+        } else if (e instanceof Call c) {
+            boolean f = isFloat(c.target.t);
+            call(c);
+            if (copy) {
+                code.local(0x37, -2, scratch);  // lstore
+                code.local(0x16, 2, scratch);   // lload
+                decode(f);
+                code.local(0x16, 2, scratch);
+                invoke("Jit", "isDefined", "(J)Z", -1);
+                return;
+            }
+            invoke("Jit", "checked", "(J)J", 0);
+            decode(f);
+            return;
+        } else
+            throw new IllegalArgumentException("should never reach here");
+        if (copy)
+            code.op(0x04, 1);   // 계산된 값은 항상 정의됨
+    }
+
+    // 조건식은 검사하지 않는다, undef는 false
+    private void test(Expression e) {
+        boolean u = Bytecode.undefined(e);
+        J(e, u);
+        if (u)
+            orElse(e, 0);
+    }
+
+    // 스택의 (값, 정의 플래그)를 값으로, undef면 d (float이면 0.0)
+    private void orElse(Expression e, int d) {
+        if (isFloat(typeOf(e))) {
+            floatConstant(0);
+            invoke("Jit", "or", "(FZF)F", -2);
+        } else {
+            intConstant(d);
+            invoke("Jit", "or", "(IZI)I", -2);
+        }
+    }
+
+    private void call(Call c) {
+        int argc = 0;
+        if (c.args != null)
+            for (Expression arg : c.args) {
+                J(arg, true);
+                argc++;
+            }
+        invoke(CLASS, c.name, descriptor(c.target), 2 - 2 * argc);
+    }
+
+    private void decode(boolean f) {
+        code.op(0x88, -1);  // l2i
+        if (f)
+            invoke("java/lang/Float", "intBitsToFloat", "(I)F", 0);
+    }
+
+    private void load(ResolvedVariable v, boolean f) {
+        if (v.global) {
+            used[v.offset] = true;
+            code.u2(0xb2, 1, cf.field(CLASS, v.toString(), f ? "F" : "I"));
+        } else
+            code.local(f ? 0x17 : 0x15, 1, 2 * v.offset);
+    }
+
+    private void loadDefined(ResolvedVariable v) {
+        if (v.global)
+            code.u2(0xb2, 1, cf.field(CLASS, "$" + v, "Z"));
+        else
+            code.local(0x15, 1, 2 * v.offset + 1);
+    }
+
+    // 스택의 (값, 정의 플래그)를 변수에 저장
+    private void store(ResolvedVariable v) {
+        boolean f = isFloat(typeOf(v));
+        if (v.global) {
+            used[v.offset] = true;
+            code.u2(0xb3, -1, cf.field(CLASS, "$" + v, "Z"));
+            code.u2(0xb3, -1, cf.field(CLASS, v.toString(), f ? "F" : "I"));
+        } else {
+            code.local(0x36, -1, 2 * v.offset + 1);
+            code.local(f ? 0x38 : 0x36, -1, 2 * v.offset);
+        }
+    }
+
+    private void invoke(String owner, String name, String desc, int delta) {
+        code.u2(0xb8, delta, cf.method(owner, name, desc));
+    }
+
+    private void intConstant(int v) {
+        if (v >= -1 && v <= 5)
+            code.op(0x03 + v, 1);
+        else if (v == (byte) v) {
+            code.op(0x10, 1);
+            code.u1(v);
+        } else if (v == (short) v) {
+            code.op(0x11, 1);
+            code.u1(v >> 8);
+            code.u1(v);
+        } else
+            ldc(cf.integer(v));
+    }
+
+    private void floatConstant(float v) {
+        if (Float.floatToRawIntBits(v) == 0)
+            code.op(0x0b, 1);
+        else if (v == 1.0f)
+            code.op(0x0c, 1);
+        else if (v == 2.0f)
+            code.op(0x0d, 1);
+        else
+            ldc(cf.floating(v));
+    }
+
+    private void ldc(int index) {
+        if (index < 256) {
+            code.op(0x12, 1);
+            code.u1(index);
+        } else
+            code.u2(0x13, 1, index);
+    }
+
+    private void binary(Opcode op) {
+        switch (op) {
+            case AND -> code.op(0x7e, -1);
+            case OR -> code.op(0x80, -1);
+            case INT_LT, CHAR_LT, BOOL_LT -> compare(0xa1, -2);
+            case INT_LE, CHAR_LE, BOOL_LE -> compare(0xa4, -2);
+            case INT_EQ, CHAR_EQ, BOOL_EQ -> compare(0x9f, -2);
+            case INT_NE, CHAR_NE, BOOL_NE -> compare(0xa0, -2);
+            case INT_GT, CHAR_GT, BOOL_GT -> compare(0xa3, -2);
+            case INT_GE, CHAR_GE, BOOL_GE -> compare(0xa2, -2);
+            // NaN이 있으면 거짓이 되도록 javac와 같은 fcmpg/fcmpl 선택
+            case FLOAT_LT -> { code.op(0x96, -1); compare(0x9b, -1); }
+            case FLOAT_LE -> { code.op(0x96, -1); compare(0x9e, -1); }
+            case FLOAT_EQ -> { code.op(0x95, -1); compare(0x99, -1); }
+            case FLOAT_NE -> { code.op(0x95, -1); compare(0x9a, -1); }
+            case FLOAT_GT -> { code.op(0x95, -1); compare(0x9d, -1); }
+            case FLOAT_GE -> { code.op(0x95, -1); compare(0x9c, -1); }
+            case INT_PLUS -> code.op(0x60, -1);
+            case INT_MINUS -> code.op(0x64, -1);
+            case INT_TIMES -> code.op(0x68, -1);
+            case INT_DIV -> code.op(0x6c, -1);
+            case FLOAT_PLUS -> code.op(0x62, -1);
+            case FLOAT_MINUS -> code.op(0x66, -1);
+            case FLOAT_TIMES -> code.op(0x6a, -1);
+            case FLOAT_DIV -> code.op(0x6e, -1);
+            default -> throw new IllegalArgumentException("Unknown binary operator " + op.symbol);
+        }
+    }
+
+    // 조건 분기로 0 또는 1을 만든다
+    private void compare(int branch, int delta) {
+        int yes = code.label(), end = code.label();
+        code.jump(branch, delta, yes);
+        code.op(0x03, 1);
+        code.jump(0xa7, -1, end);
+        code.bind(yes);
+        code.op(0x04, 1);
+        code.bind(end);
+    }
+
+    private void unary(Opcode op) {
+        switch (op) {
+            case NOT -> { code.op(0x04, 1); code.op(0x82, -1); }
+            case INT_NEG -> code.op(0x74, 0);
+            case FLOAT_NEG -> code.op(0x76, 0);
+            case I2F -> code.op(0x86, 0);
+            case F2I -> code.op(0x8b, 0);
+            case I2C -> code.op(0x92, 0);
+            case C2I -> { }
+            default -> throw new IllegalArgumentException("Unknown unary operator " + op.symbol);
+        }
+    }
+
+    private Type typeOf(ResolvedVariable v) {
+        return v.global ? globals.get(v.offset).t : slots[v.offset];
+    }
+
+    // undef일 수 있는 식의 타입
+    private Type typeOf(Expression e) {
+        if (e instanceof ResolvedVariable v)
+            return typeOf(v);
+        if (e instanceof Call c)
+            return c.target.t;
+        return ((Value) e).type();
+    }
+
+    private static boolean isFloat(Type t) {
+        return t == Type.FLOAT;
+    }
+
+    private static String descriptor(Type t) {
+        return isFloat(t) ? "F" : "I";
+    }
+
+    private static String descriptor(Function f) {
+        StringBuilder sb = new StringBuilder("(");
+        for (Declaration d : f.params)
+            sb.append(descriptor(d.t)).append('Z');
+        return sb.append(")J").toString();
+    }
+
+    // 컴파일된 코드가 호출하는 런타임 함수
+    static void defined(boolean d) {
+        StaticTypeCheck.check(d, "reference to undef value");
+    }
+
+    static void defined(boolean d1, boolean d2) {
+        defined(d1 || d2);
+    }
+
+    static int or(int v, boolean d, int base) {
+        return d ? v : base;
+    }
+
+    static float or(float v, boolean d, float base) {
+        return d ? v : base;
+    }
+
+    static long checked(long v) {
+        defined(v != Bytecode.UNDEF);
+        return v;
+    }
+
+    static boolean isDefined(long v) {
+        return v != Bytecode.UNDEF;
+    }
+
+    static long ret(int v, boolean d) {
+        return d ? v : Bytecode.UNDEF;
+    }
+
+    static long ret(float v, boolean d) {
+        return d ? Float.floatToRawIntBits(v) : Bytecode.UNDEF;
+    }
+
+    // Memory.ensure처럼 프레임이 Memory.LIMIT를 넘으면 스택 오버플로
+    static void push(int n) {
+        if ((sp += n) > Memory.LIMIT)
+            throw new StackOverflowException(Memory.LIMIT);
+    }
+
+    static void pop(int n) {
+        sp -= n;
+    }
+
+    // main 실행 후 전역 필드를 State로 옮겨 Semantics와 같은 형식으로 출력
+    State run() {
+        Class<?> c = program.lookupClass();
+        State sigma = new State();
+        sigma = sigma.allocate(globals);
+        try {
+            program.findStatic(c, "main", MethodType.methodType(long.class)).invoke();
+            for (int i = 0; i < globals.size(); i++) {
+                Declaration d = globals.get(i);
+                if (!(boolean) program.findStaticGetter(c, "$" + d.v, boolean.class).invoke())
+                    continue;
+                Object v = program.findStaticGetter(c, d.v.toString(), isFloat(d.t) ? float.class : int.class).invoke();
+                long bits = isFloat(d.t) ? Float.floatToRawIntBits((float) v) : (int) v;
+                sigma.mu.set(i, Bytecode.value(bits, d.t));
+            }
+        } catch (StackOverflowError e) {
+            throw new StackOverflowException();
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new IllegalStateException(e);
+        }
+        return sigma;
+    }
+
+    // 인터프리터의 mu[base..]에 쌓인 인수로 컴파일된 f를 호출하고
+    // 반환 슬롯을 Bytecode 인코딩으로 돌려준다.  사용하는 전역은 호출 전후로 옮긴다
+    long invoke(Function f, Memory mu, int base) {
+        Object[] args = new Object[2 * f.params.size()];
+        for (int i = 0; i < f.params.size(); i++) {
+            byte tag = mu.tag(base + i);
+            int bits = (int) mu.bits(base + i);
+            args[2 * i] = isFloat(f.params.get(i).t) ? (Object) Float.intBitsToFloat(bits) : (Object) bits;
+            args[2 * i + 1] = tag != Memory.UNDEF && tag != Memory.UNUSED;
+        }
+        try {
+            enter(mu);
+            sp = base;
+            long v = (long) entries.get(f).invokeExact(args);
+            leave(mu);
+            return v;
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    // mu[dlink..dlink+n)에 있는 f의 프레임으로 컴파일된 루프를 끝까지 실행하고 프레임에 되돌려 쓴다
+    void osr(Function f, Memory mu, int dlink, int n) {
+        Type[] types = slots(f);
+        long[] bits = new long[types.length];
+        boolean[] defined = new boolean[types.length];
+        for (int k = 0; k < n; k++) {
+            byte tag = mu.tag(dlink + k);
+            bits[k] = mu.bits(dlink + k);
+            defined[k] = tag != Memory.UNDEF && tag != Memory.UNUSED;
+        }
+        try {
+            enter(mu);
+            sp = dlink + n;
+            osr.invokeExact(bits, defined);
+            leave(mu);
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new IllegalStateException(e);
+        }
+        for (int k = 0; k < n; k++) {
+            if (defined[k])
+                mu.set(dlink + k, tag(types[k]), bits[k]);
+            else
+                mu.mark(dlink + k, Memory.UNDEF);
+        }
+    }
+
+    // 컴파일된 코드가 쓰는 전역을 Memory에서 정적 필드로 옮긴다
+    private void enter(Memory mu) throws Throwable {
+        for (int i = 0; i < used.length; i++) {
+            if (!used[i])
+                continue;
+            byte tag = mu.tag(i);
+            int bits = (int) mu.bits(i);
+            if (isFloat(globals.get(i).t))
+                setValues[i].invokeExact(Float.intBitsToFloat(bits));
+            else
+                setValues[i].invokeExact(bits);
+            setFlags[i].invokeExact(tag != Memory.UNDEF && tag != Memory.UNUSED);
+        }
+    }
+
+    // 정적 필드의 전역을 Memory로 되돌린다
+    private void leave(Memory mu) throws Throwable {
+        for (int i = 0; i < used.length; i++) {
+            if (!used[i])
+                continue;
+            if (!(boolean) flags[i].invokeExact()) {
+                mu.mark(i, Memory.UNDEF);
+                continue;
+            }
+            Type t = globals.get(i).t;
+            if (isFloat(t))
+                mu.set(i, Memory.FLOAT, Float.floatToRawIntBits((float) values[i].invokeExact()));
+            else
+                mu.set(i, tag(t), (int) values[i].invokeExact());
+        }
+    }
+
+    private static byte tag(Type t) {
+        if (t == Type.FLOAT)
+            return Memory.FLOAT;
+        if (t == Type.BOOL)
+            return Memory.BOOL;
+        return t == Type.CHAR ? Memory.CHAR : Memory.INT;
+    }
+}
+
+// 최소한의 클래스 파일 작성기.  버전 49라서 StackMapTable이 필요 없다
+class ClassFile {
+    private final ByteArrayOutputStream poolBytes = new ByteArrayOutputStream();
+    private final DataOutputStream pool = new DataOutputStream(poolBytes);
+    private final HashMap<String, Integer> constants = new HashMap<>();
+    private int count = 1;
+    private final ArrayList<String[]> fields = new ArrayList<>();
+    private final ArrayList<Object[]> methods = new ArrayList<>();
+
+    private int constant(String key, int tag, byte[] body) {
+        Integer index = constants.get(key);
+        if (index != null)
+            return index;
+        try {
+            pool.writeByte(tag);
+            pool.write(body);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+        constants.put(key, count);
+        return count++;
+    }
+
+    private static byte[] bytes(int... u2s) {
+        byte[] b = new byte[2 * u2s.length];
+        for (int i = 0; i < u2s.length; i++) {
+            b[2 * i] = (byte) (u2s[i] >> 8);
+            b[2 * i + 1] = (byte) u2s[i];
+        }
+        return b;
+    }
+
+    private static byte[] u4(int v) {
+        return bytes(v >>> 16, v & 0xffff);
+    }
+
+    int utf8(String s) {
+        ByteArrayOutputStream b = new ByteArrayOutputStream();
+        try {
+            new DataOutputStream(b).writeUTF(s);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+        return constant("U" + s, 1, b.toByteArray());
+    }
+
+    int integer(int v) {
+        return constant("I" + v, 3, u4(v));
+    }
+
+    int floating(float v) {
+        int bits = Float.floatToRawIntBits(v);
+        return constant("F" + bits, 4, u4(bits));
+    }
+
+    int cls(String name) {
+        return constant("C" + name, 7, bytes(utf8(name)));
+    }
+
+    private int nameAndType(String name, String desc) {
+        return constant("N" + name + " " + desc, 12, bytes(utf8(name), utf8(desc)));
+    }
+
+    int field(String owner, String name, String desc) {
+        return constant("f" + owner + "." + name + " " + desc, 9, bytes(cls(owner), nameAndType(name, desc)));
+    }
+
+    int method(String owner, String name, String desc) {
+        return constant("m" + owner + "." + name + desc, 10, bytes(cls(owner), nameAndType(name, desc)));
+    }
+
+    // public static 필드 선언
+    void field(String name, String desc) {
+        fields.add(new String[]{name, desc});
+    }
+
+    // public static 메소드 선언
+    void method(String name, String desc, Code code) {
+        methods.add(new Object[]{name, desc, code.toBytes()});
+    }
+
+    byte[] toBytes(String name) {
+        int self = cls(name), parent = cls("java/lang/Object"), codeName = utf8("Code");
+        int[][] fs = new int[fields.size()][];
+        for (int i = 0; i < fs.length; i++)
+            fs[i] = new int[]{utf8(fields.get(i)[0]), utf8(fields.get(i)[1])};
+        int[][] ms = new int[methods.size()][];
+        for (int i = 0; i < ms.length; i++)
+            ms[i] = new int[]{utf8((String) methods.get(i)[0]), utf8((String) methods.get(i)[1])};
+        ByteArrayOutputStream b = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(b);
+        try {
+            out.writeInt(0xcafebabe);
+            out.writeShort(0);
+            out.writeShort(49);
+            out.writeShort(count);
+            out.write(poolBytes.toByteArray());
+            out.writeShort(0x0031);     // public final super
+            out.writeShort(self);
+            out.writeShort(parent);
+            out.writeShort(0);
+            out.writeShort(fs.length);
+            for (int[] f : fs) {
+                out.writeShort(0x0009);  // public static
+                out.writeShort(f[0]);
+                out.writeShort(f[1]);
+                out.writeShort(0);
+            }
+            out.writeShort(ms.length);
+            for (int i = 0; i < ms.length; i++) {
+                byte[] body = (byte[]) methods.get(i)[2];
+                out.writeShort(0x0009);
+                out.writeShort(ms[i][0]);
+                out.writeShort(ms[i][1]);
+                out.writeShort(1);
+                out.writeShort(codeName);
+                out.writeInt(body.length);
+                out.write(body);
+            }
+            out.writeShort(0);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+        return b.toByteArray();
+    }
+}
+
+// 메소드 하나의 바이트코드와 스택 깊이, 점프 목적지
+class Code {
+    private final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    private final ArrayList<Integer> labels = new ArrayList<>();
+    private final ArrayList<int[]> patches = new ArrayList<>();   // {명령 위치, 오프셋 위치, 레이블}
+    private int depth, max;
+    int locals;
+
+    void u1(int v) {
+        bytes.write(v);
+    }
+
+    // 명령어 추가, delta는 피연산자 스택 깊이 변화량
+    void op(int op, int delta) {
+        u1(op);
+        depth += delta;
+        max = Math.max(max, depth);
+    }
+
+    void u2(int op, int delta, int operand) {
+        op(op, delta);
+        u1(operand >> 8);
+        u1(operand);
+    }
+
+    void local(int op, int delta, int index) {
+        if (index > 255) {
+            u1(0xc4);   // wide
+            u2(op, delta, index);
+            return;
+        }
+        op(op, delta);
+        u1(index);
+    }
+
+    int label() {
+        labels.add(-1);
+        return labels.size() - 1;
+    }
+
+    void bind(int label) {
+        labels.set(label, bytes.size());
+    }
+
+    void jump(int op, int delta, int label) {
+        int at = bytes.size();
+        op(op, delta);
+        patches.add(new int[]{at, bytes.size(), label});
+        u1(0);
+        u1(0);
+    }
+
+    byte[] toBytes() {
+        byte[] code = bytes.toByteArray();
+        for (int[] p : patches) {
+            int offset = labels.get(p[2]) - p[0];
+            if (offset != (short) offset)
+                throw new IllegalArgumentException("Function too large for the JIT");
+            code[p[1]] = (byte) (offset >> 8);
+            code[p[1] + 1] = (byte) offset;
+        }
+        if (code.length > 65535)
+            throw new IllegalArgumentException("Function too large for the JIT");
+        ByteArrayOutputStream b = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(b);
+        try {
+            out.writeShort(max);
+            out.writeShort(locals);
+            out.writeInt(code.length);
+            out.write(code);
+            out.writeShort(0);
+            out.writeShort(0);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+        return b.toByteArray();
+    }
+}
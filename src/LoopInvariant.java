@@ -0,0 +1,315 @@
+// LoopInvariant.java
+
+// Loop-invariant code motion over the typed Program.  H moves operator
+// expressions and calls to pure functions (see Purity) out of a Loop
+// into fresh locals _t0, _t1, ... when no variable they read is
+// assigned in the loop.  A global counts as assigned when the loop
+// calls an impure function.  The rewrite is
+//   while (test) body
+//     =>  { _ta = ea; if (test') { _tb = eb; while (test') body' } }
+// where ea comes from the test, which runs at least once anyway, and eb
+// from a statement the body always runs (a direct member of the body
+// Block).  So an expression that stops the program on an undef value
+// is only evaluated where Semantics would evaluate it too.  Integer
+// divisions are not moved, since they can fail in another way.  The
+// guard is added only when the test calls no impure function, because
+// the guard evaluates the test one more time.
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+
+public class LoopInvariant {
+
+    int hoisted; // 루프 밖으로 옮긴 식 수
+    int loops;   // 식을 옮긴 루프 수
+
+    private HashSet<Function> pure;
+    private Functions functions;
+    private HashMap<Variable, Type> types;  // 현재 함수에서 보이는 변수의 타입
+    private HashSet<Variable> locals;       // 현재 함수의 매개변수, 지역변수, 반환 변수
+    private Declarations temps;             // 현재 함수에 새로 만든 임시 변수
+
+    public static void main(String[] args) {
+        Parser parser = new Parser(new Lexer(args[0]));
+        Program prog = parser.program();
+        StaticTypeCheck.V(prog);
+        LoopInvariant li = new LoopInvariant();
+        Program out = li.H(TypeTransformer.T(prog));
+        System.out.println("\n\nAST after loop-invariant code motion");
+        out.display();
+        System.out.println("\n" + li);
+    } //main
+
+    Program H(Program p) {
+        pure = Purity.P(p);
+        functions = p.functions;
+        Functions fs = new Functions();
+        for (Function f : p.functions) {
+            types = new HashMap<>();
+            for (Declaration d : p.globals)
+                types.put(d.v, d.t);
+            locals = new HashSet<>();
+            Declarations ds = new Declarations();
+            ds.addAll(f.params);
+            ds.addAll(f.locals);
+            for (Declaration d : ds) {
+                types.put(d.v, d.t);
+                locals.add(d.v);
+            }
+            locals.add(new Variable(f.id));
+            temps = new Declarations();
+            Block body = (Block) H(f.body);
+            Declarations fl = new Declarations();
+            fl.addAll(f.locals);
+            fl.addAll(temps);
+            fs.add(new Function(f.t, f.id, f.params, fl, body));
+        }
+        return new Program(p.globals, fs);
+    }
+
+    Statement H(Statement s) {
+        if (s instanceof Conditional c)
+            return new Conditional(c.test, H(c.thenbranch), H(c.elsebranch));
+        if (s instanceof Block b) {
+            Block out = new Block();
+            for (Statement stmt : b.members)
+                out.members.add(H(stmt));
+            return out;
+        }
+        if (s instanceof Loop l)
+            return hoist(new Loop(l.test, H(l.body))); // 안쪽 루프부터
+        return s;
+    }
+
+    private Statement hoist(Loop l) {
+        HashSet<Variable> assigned = new HashSet<>();
+        ConstantFolding.assigned(l.body, assigned);
+        boolean impure = impure(l.test) || impure(l.body);
+        // 테스트에서 옮길 식과 몸체에서 옮길 식
+        ArrayList<Expression> fromTest = new ArrayList<>(), fromBody = new ArrayList<>();
+        collect(l.test, assigned, impure, fromTest);
+        if (!impure(l.test)) {
+            Statement[] members = l.body instanceof Block b
+                    ? b.members.toArray(new Statement[0]) : new Statement[]{l.body};
+            for (Statement m : members) {
+                for (Expression e : certain(m))
+                    collect(e, assigned, impure, fromBody);
+                if (m instanceof Return)
+                    break;
+            }
+        }
+        fromBody.removeIf(e -> contains(fromTest, e));
+        if (fromTest.isEmpty() && fromBody.isEmpty())
+            return l;
+        loops++;
+        ArrayList<Expression> hoist = new ArrayList<>(fromTest);
+        hoist.addAll(fromBody);
+        ArrayList<Variable> vars = new ArrayList<>();
+        for (Expression e : hoist)
+            vars.add(temp(e));
+        Expression test = replace(l.test, hoist, vars);
+        Statement body = replace(l.body, hoist, vars);
+        Block out = new Block();
+        for (int i = 0; i < fromTest.size(); i++)
+            out.members.add(new Assignment(vars.get(i), hoist.get(i)));
+        Statement loop = new Loop(test, body);
+        if (!fromBody.isEmpty()) {
+            Block guarded = new Block();
+            for (int i = fromTest.size(); i < hoist.size(); i++)
+                guarded.members.add(new Assignment(vars.get(i), hoist.get(i)));
+            guarded.members.add(loop);
+            loop = new Conditional(test, guarded);
+        }
+        out.members.add(loop);
+        return out;
+    }
+
+    // 몸체가 실행되면 반드시 계산되는 식 (문장의 바로 아래 식)
+    private static ArrayList<Expression> certain(Statement s) {
+        ArrayList<Expression> es = new ArrayList<>();
+        if (s instanceof Assignment a)
+            es.add(a.source);
+        else if (s instanceof Return r)
+            es.add(r.result);
+        else if (s instanceof Conditional c)
+            es.add(c.test);
+        else if (s instanceof Loop l)
+            es.add(l.test);
+        else if (s instanceof Call c && c.args != null)
+            es.addAll(c.args);  // 호출문 자체는 값을 버리므로 인수만 옮긴다
+        return es;
+    }
+
+    // 옮길 수 있는 가장 큰 부분식을 모은다
+    private void collect(Expression e, HashSet<Variable> assigned, boolean impure, ArrayList<Expression> out) {
+        if (e instanceof Value || e instanceof Variable)
+            return;
+        if (invariant(e, assigned, impure)) {
+            if (!contains(out, e))
+                out.add(e);
+            return;
+        }
+        if (e instanceof Binary b) {
+            collect(b.term1, assigned, impure, out);
+            collect(b.term2, assigned, impure, out);
+        } else if (e instanceof Unary u)
+            collect(u.term, assigned, impure, out);
+        else if (e instanceof Call c && c.args != null)
+            for (Expression arg : c.args)
+                collect(arg, assigned, impure, out);
+    }
+
+    private boolean invariant(Expression e, HashSet<Variable> assigned, boolean impure) {
+        if (e instanceof Value)
+            return true;
+        if (e instanceof Variable v)
+            return !assigned.contains(v) && (locals.contains(v) || !impure);
+        if (e instanceof Binary b)
+            return b.op.opcode != Opcode.INT_DIV
+                    && invariant(b.term1, assigned, impure) && invariant(b.term2, assigned, impure);
+        if (e instanceof Unary u)
+            return invariant(u.term, assigned, impure);
+        if (e instanceof Call c) {
+            if (!pure.contains(functions.findFunction(c.name)))
+                return false;
+            if (c.args != null)
+                for (Expression arg : c.args)
+                    if (!invariant(arg, assigned, impure))
+                        return false;
+            return true;
+        }
+        throw new IllegalArgumentException("should never reach here");
+    }
+
+    // 순수하지 않은 함수를 호출하면 참
+    private boolean impure(Statement s) {
+        if (s instanceof Assignment a)
+            return impure(a.source);
+        if (s instanceof Return r)
+            return impure(r.result);
+        if (s instanceof Conditional c)
+            return impure(c.test) || impure(c.thenbranch) || impure(c.elsebranch);
+        if (s instanceof Loop l)
+            return impure(l.test) || impure(l.body);
+        if (s instanceof Block b) {
+            for (Statement stmt : b.members)
+                if (impure(stmt))
+                    return true;
+            return false;
+        }
+        if (s instanceof Binary b)
+            return impure(b.term1) || impure(b.term2);
+        if (s instanceof Unary u)
+            return impure(u.term);
+        if (s instanceof Call c) {
+            if (!pure.contains(functions.findFunction(c.name)))
+                return true;
+            if (c.args != null)
+                for (Expression arg : c.args)
+                    if (impure(arg))
+                        return true;
+        }
+        return false;
+    }
+
+    private Variable temp(Expression e) {
+        Variable v = new Variable("_t" + temps.size());
+        temps.add(new Declaration(v, typeOf(e)));
+        hoisted++;
+        return v;
+    }
+
+    private Type typeOf(Expression e) {
+        if (e instanceof Value v)
+            return v.type();
+        if (e instanceof Variable v)
+            return types.get(v);
+        if (e instanceof Binary b)
+            return b.op.opcode.result();
+        if (e instanceof Unary u)
+            return u.op.opcode.result();
+        if (e instanceof Call c)
+            return functions.findFunction(c.name).t;
+        throw new IllegalArgumentException("should never reach here");
+    }
+
+    // 옮긴 식과 같은 부분식을 임시 변수로 바꾼다
+    private static Statement replace(Statement s, ArrayList<Expression> es, ArrayList<Variable> vars) {
+        if (s instanceof Assignment a)
+            return new Assignment(a.target, replace(a.source, es, vars));
+        if (s instanceof Return r)
+            return new Return(r.target, replace(r.result, es, vars));
+        if (s instanceof Conditional c)
+            return new Conditional(replace(c.test, es, vars),
+                    replace(c.thenbranch, es, vars), replace(c.elsebranch, es, vars));
+        if (s instanceof Loop l)
+            return new Loop(replace(l.test, es, vars), replace(l.body, es, vars));
+        if (s instanceof Block b) {
+            Block out = new Block();
+            for (Statement stmt : b.members)
+                out.members.add(replace(stmt, es, vars));
+            return out;
+        }
+        if (s instanceof Call c) {  // 호출문은 문장으로 남긴다
+            Expressions args = new Expressions();
+            if (c.args != null)
+                for (Expression arg : c.args)
+                    args.add(replace(arg, es, vars));
+            return new Call(c.name, args);
+        }
+        return s;
+    }
+
+    private static Expression replace(Expression e, ArrayList<Expression> es, ArrayList<Variable> vars) {
+        for (int i = 0; i < es.size(); i++)
+            if (same(e, es.get(i)))
+                return vars.get(i);
+        if (e instanceof Binary b)
+            return new Binary(b.op, replace(b.term1, es, vars), replace(b.term2, es, vars));
+        if (e instanceof Unary u)
+            return new Unary(u.op, replace(u.term, es, vars));
+        if (e instanceof Call c) {
+            Expressions args = new Expressions();
+            if (c.args != null)
+                for (Expression arg : c.args)
+                    args.add(replace(arg, es, vars));
+            return new Call(c.name, args);
+        }
+        return e;
+    }
+
+    private static boolean contains(ArrayList<Expression> es, Expression e) {
+        for (Expression x : es)
+            if (same(x, e))
+                return true;
+        return false;
+    }
+
+    // 구조가 같은 식인지 비교
+    static boolean same(Expression a, Expression b) {
+        if (a instanceof Value v && b instanceof Value w)
+            return ConstantFolding.same(v, w);
+        if (a instanceof Variable v && b instanceof Variable w)
+            return v.equals(w);
+        if (a instanceof Binary x && b instanceof Binary y)
+            return x.op == y.op && same(x.term1, y.term1) && same(x.term2, y.term2);
+        if (a instanceof Unary x && b instanceof Unary y)
+            return x.op == y.op && same(x.term, y.term);
+        if (a instanceof Call x && b instanceof Call y) {
+            int n = x.args == null ? 0 : x.args.size();
+            if (!x.name.equals(y.name) || n != (y.args == null ? 0 : y.args.size()))
+                return false;
+            for (int i = 0; i < n; i++)
+                if (!same(x.args.get(i), y.args.get(i)))
+                    return false;
+            return true;
+        }
+        return false;
+    }
+
+    @Override
+    public String toString() {
+        return "loop-invariant code motion: " + hoisted + " expressions hoisted from " + loops + " loops";
+    }
+} // class LoopInvariant
@@ -0,0 +1,91 @@
+// Memo.java
+
+// Result cache for calls to pure functions (see Purity).  A call is
+// keyed by its function and the tags and bits of its argument slots,
+// so undef arguments are keys too.  The table is a bounded LRU map of
+// at most CAPACITY entries (-Dclite.memo=N).
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+class Memo {
+    final static int CAPACITY = Integer.getInteger("clite.memo", 1 << 16);
+
+    private final HashSet<Function> pure;
+    private final LinkedHashMap<Key, Value> table = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Key, Value> eldest) {
+            if (size() <= CAPACITY)
+                return false;
+            evictions++;
+            return true;
+        }
+    };
+    long hits, misses, evictions;
+
+    Memo(Program p) {
+        pure = Purity.P(p);
+    }
+
+    boolean isPure(Function f) {
+        return pure.contains(f);
+    }
+
+    // 프레임 base에 쌓인 인수 n개로 키를 만든다
+    Key key(Function f, Memory mu, int base, int n) {
+        long[] bits = new long[n];
+        byte[] tags = new byte[n];
+        for (int i = 0; i < n; i++) {
+            tags[i] = mu.tag(base + i);
+            bits[i] = tags[i] == Memory.UNDEF ? 0 : mu.bits(base + i);
+        }
+        return new Key(f, bits, tags);
+    }
+
+    // 저장된 결과, 없으면 null
+    Value get(Key k) {
+        Value v = table.get(k);
+        if (v == null)
+            misses++;
+        else
+            hits++;
+        return v;
+    }
+
+    void put(Key k, Value v) {
+        table.put(k, v);
+    }
+
+    public void display() {
+        System.out.println("Memo: hits=" + hits + ", misses=" + misses
+                + ", evictions=" + evictions + ", entries=" + table.size());
+    }
+
+    static class Key {
+        private final Function f;
+        private final long[] bits;
+        private final byte[] tags;
+        private final int hash;
+
+        Key(Function f, long[] bits, byte[] tags) {
+            this.f = f;
+            this.bits = bits;
+            this.tags = tags;
+            hash = 31 * (31 * f.hashCode() + Arrays.hashCode(bits)) + Arrays.hashCode(tags);
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) return true;
+            if (!(obj instanceof Key k)) return false;
+            return f == k.f && Arrays.equals(bits, k.bits) && Arrays.equals(tags, k.tags);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+}
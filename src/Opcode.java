@@ -0,0 +1,113 @@
+// Opcode.java
+
+// Typed operators after TypeTransformer.T.  Each opcode carries its own
+// implementation, so Semantics dispatches through the opcode of an
+// Operator instead of comparing operator strings.
+
+import java.util.HashMap;
+import java.util.function.BinaryOperator;
+import java.util.function.UnaryOperator;
+
+enum Opcode {
+    // BooleanOp
+    AND(Operator.AND, (a, b) -> BoolValue.of(a.boolValue() && b.boolValue())),
+    OR(Operator.OR, (a, b) -> BoolValue.of(a.boolValue() || b.boolValue())),
+    // RelationalOp
+    INT_LT(Operator.INT_LT, (a, b) -> BoolValue.of(a.intValue() < b.intValue())),
+    INT_LE(Operator.INT_LE, (a, b) -> BoolValue.of(a.intValue() <= b.intValue())),
+    INT_EQ(Operator.INT_EQ, (a, b) -> BoolValue.of(a.intValue() == b.intValue())),
+    INT_NE(Operator.INT_NE, (a, b) -> BoolValue.of(a.intValue() != b.intValue())),
+    INT_GT(Operator.INT_GT, (a, b) -> BoolValue.of(a.intValue() > b.intValue())),
+    INT_GE(Operator.INT_GE, (a, b) -> BoolValue.of(a.intValue() >= b.intValue())),
+    FLOAT_LT(Operator.FLOAT_LT, (a, b) -> BoolValue.of(a.floatValue() < b.floatValue())),
+    FLOAT_LE(Operator.FLOAT_LE, (a, b) -> BoolValue.of(a.floatValue() <= b.floatValue())),
+    FLOAT_EQ(Operator.FLOAT_EQ, (a, b) -> BoolValue.of(a.floatValue() == b.floatValue())),
+    FLOAT_NE(Operator.FLOAT_NE, (a, b) -> BoolValue.of(a.floatValue() != b.floatValue())),
+    FLOAT_GT(Operator.FLOAT_GT, (a, b) -> BoolValue.of(a.floatValue() > b.floatValue())),
+    FLOAT_GE(Operator.FLOAT_GE, (a, b) -> BoolValue.of(a.floatValue() >= b.floatValue())),
+    CHAR_LT(Operator.CHAR_LT, (a, b) -> BoolValue.of(a.charValue() < b.charValue())),
+    CHAR_LE(Operator.CHAR_LE, (a, b) -> BoolValue.of(a.charValue() <= b.charValue())),
+    CHAR_EQ(Operator.CHAR_EQ, (a, b) -> BoolValue.of(a.charValue() == b.charValue())),
+    CHAR_NE(Operator.CHAR_NE, (a, b) -> BoolValue.of(a.charValue() != b.charValue())),
+    CHAR_GT(Operator.CHAR_GT, (a, b) -> BoolValue.of(a.charValue() > b.charValue())),
+    CHAR_GE(Operator.CHAR_GE, (a, b) -> BoolValue.of(a.charValue() >= b.charValue())),
+    // false < true
+    BOOL_LT(Operator.BOOL_LT, (a, b) -> BoolValue.of(!a.boolValue() && b.boolValue())),
+    BOOL_LE(Operator.BOOL_LE, (a, b) -> BoolValue.of(!a.boolValue() || b.boolValue())),
+    BOOL_EQ(Operator.BOOL_EQ, (a, b) -> BoolValue.of(a.boolValue() == b.boolValue())),
+    BOOL_NE(Operator.BOOL_NE, (a, b) -> BoolValue.of(a.boolValue() != b.boolValue())),
+    BOOL_GT(Operator.BOOL_GT, (a, b) -> BoolValue.of(a.boolValue() && !b.boolValue())),
+    BOOL_GE(Operator.BOOL_GE, (a, b) -> BoolValue.of(a.boolValue() || !b.boolValue())),
+    // ArithmeticOp
+    INT_PLUS(Operator.INT_PLUS, (a, b) -> IntValue.of(a.intValue() + b.intValue())),
+    INT_MINUS(Operator.INT_MINUS, (a, b) -> IntValue.of(a.intValue() - b.intValue())),
+    INT_TIMES(Operator.INT_TIMES, (a, b) -> IntValue.of(a.intValue() * b.intValue())),
+    INT_DIV(Operator.INT_DIV, (a, b) -> IntValue.of(a.intValue() / b.intValue())),
+    FLOAT_PLUS(Operator.FLOAT_PLUS, (a, b) -> new FloatValue(a.floatValue() + b.floatValue())),
+    FLOAT_MINUS(Operator.FLOAT_MINUS, (a, b) -> new FloatValue(a.floatValue() - b.floatValue())),
+    FLOAT_TIMES(Operator.FLOAT_TIMES, (a, b) -> new FloatValue(a.floatValue() * b.floatValue())),
+    FLOAT_DIV(Operator.FLOAT_DIV, (a, b) -> new FloatValue(a.floatValue() / b.floatValue())),
+    // UnaryOp
+    NOT(Operator.NOT, v -> BoolValue.of(!v.boolValue())),
+    INT_NEG(Operator.INT_NEG, v -> IntValue.of(-v.intValue())),
+    FLOAT_NEG(Operator.FLOAT_NEG, v -> new FloatValue(-v.floatValue())),
+    // Type specific cast
+    I2F(Operator.I2F, v -> new FloatValue((float) v.intValue())),
+    F2I(Operator.F2I, v -> IntValue.of((int) v.floatValue())),
+    C2I(Operator.C2I, v -> IntValue.of(v.charValue())),
+    I2C(Operator.I2C, v -> CharValue.of((char) v.intValue()));
+
+    // 이항 연산과 형변환의 기호 -> opcode (INT_NEG, FLOAT_NEG는 기호가 INT-, FLOAT-와 겹쳐 제외)
+    private final static HashMap<String, Opcode> symbols = new HashMap<>();
+
+    static {
+        for (Opcode op : values())
+            if (op != INT_NEG && op != FLOAT_NEG)
+                symbols.put(op.symbol, op);
+    }
+
+    final String symbol;
+    private final BinaryOperator<Value> binary;
+    private final UnaryOperator<Value> unary;
+
+    Opcode(String symbol, BinaryOperator<Value> binary) {
+        this.symbol = symbol;
+        this.binary = binary;
+        this.unary = null;
+    }
+
+    Opcode(String symbol, UnaryOperator<Value> unary) {
+        this.symbol = symbol;
+        this.binary = null;
+        this.unary = unary;
+    }
+
+    static Opcode of(String symbol) {
+        Opcode op = symbols.get(symbol);
+        if (op == null)
+            throw new IllegalArgumentException("Unknown typed operator " + symbol);
+        return op;
+    }
+
+    // 연산 결과의 타입
+    Type result() {
+        return switch (this) {
+            case INT_PLUS, INT_MINUS, INT_TIMES, INT_DIV, INT_NEG, F2I, C2I -> Type.INT;
+            case FLOAT_PLUS, FLOAT_MINUS, FLOAT_TIMES, FLOAT_DIV, FLOAT_NEG, I2F -> Type.FLOAT;
+            case I2C -> Type.CHAR;
+            default -> Type.BOOL;
+        };
+    }
+
+    boolean isUnary() {
+        return unary != null;
+    }
+
+    Value apply(Value v1, Value v2) {
+        return binary.apply(v1, v2);
+    }
+
+    Value apply(Value v) {
+        return unary.apply(v);
+    }
+}
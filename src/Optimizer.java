@@ -0,0 +1,40 @@
+// Optimizer.java
+
+// Optimization passes over the typed Program, run by Semantics with -O
+// between TypeTransformer.T and Resolver.R.  Every pass keeps the
+// meaning that Semantics gives the program and reports what it did.
+
+public class Optimizer {
+
+    public static void main(String[] args) {
+        Parser parser = new Parser(new Lexer(args[0]));
+        Program prog = parser.program();
+        StaticTypeCheck.V(prog);
+        Program out = O(TypeTransformer.T(prog));
+        System.out.println("\n\nOptimized AST");
+        out.display();
+    } //main
+
+    static Program O(Program p) {
+        System.out.println("\n\nOptimizer");
+        TailCall tc = new TailCall();
+        p = tc.E(p);
+        System.out.println("  " + tc);
+        Inliner in = new Inliner();
+        p = in.I(p);
+        System.out.println("  " + in);
+        ConstantFolding cf = new ConstantFolding();
+        p = cf.F(p);
+        System.out.println("  " + cf);
+        Simplifier sp = new Simplifier();
+        p = sp.S(p);
+        System.out.println("  " + sp);
+        DeadCode dc = new DeadCode();
+        p = dc.D(p);
+        System.out.println("  " + dc);
+        LoopInvariant li = new LoopInvariant();
+        p = li.H(p);
+        System.out.println("  " + li);
+        return p;
+    }
+} // class Optimizer
@@ -103,9 +103,8 @@ public class Parser {
     private Declarations parameter(Declarations params) {
         // Parameter --> Type Identifier
         Variable v = null;
-        Type t = new Type(token.value());
+        Type t = type();
 
-        token = lexer.next();
         if (token.type().equals(TokenType.Identifier))
             v = new Variable(match(TokenType.Identifier));
         else error("Identifier");
@@ -397,17 +396,17 @@ public class Parser {
         String s = match(type);
         switch (type) {
             case IntLiteral:
-                result = new IntValue(Integer.parseInt(s));
+                result = IntValue.of(Integer.parseInt(s));
                 break;
             // BoolLiteral은 없으므로 True와 False 이용
             case True:
-                result = new BoolValue(true);
+                result = BoolValue.TRUE;
                 break;
             case False:
-                result = new BoolValue(false);
+                result = BoolValue.FALSE;
                 break;
             case CharLiteral:
-                result = new CharValue(s.charAt(0));
+                result = CharValue.of(s.charAt(0));
                 break;
             case FloatLiteral:
                 result = new FloatValue(Float.parseFloat(s));
@@ -0,0 +1,106 @@
+// Purity.java
+
+// Purity analysis for a typed or resolved Clite program.  A function
+// is pure when its result depends only on its arguments:
+// it neither reads nor writes a global variable and calls only pure
+// functions.  P starts by assuming every function is pure and removes
+// functions until nothing changes, so recursive functions can be pure.
+
+import java.util.HashMap;
+import java.util.HashSet;
+
+public class Purity {
+
+    private final Functions functions;
+    private HashSet<Variable> locals;     // 현재 함수의 매개변수, 지역변수, 반환 변수
+    private HashSet<Function> callees;    // 현재 함수가 호출하는 함수
+
+    private Purity(Functions fs) {
+        functions = fs;
+    }
+
+    public static void main(String[] args) {
+        Parser parser = new Parser(new Lexer(args[0]));
+        Program prog = parser.program();
+        StaticTypeCheck.V(prog);
+        Program out = Resolver.R(TypeTransformer.T(prog));
+        HashSet<Function> pure = P(out);
+        System.out.println("\n\nPure functions");
+        for (Function f : out.functions)
+            System.out.println("  " + f.id + (pure.contains(f) ? ": pure" : ": impure"));
+    } //main
+
+    static HashSet<Function> P(Program p) {
+        // 함수마다 전역 접근 여부와 호출하는 함수 목록을 모은다
+        Purity a = new Purity(p.functions);
+        HashMap<Function, HashSet<Function>> calls = new HashMap<>();
+        HashSet<Function> pure = new HashSet<>();
+        for (Function f : p.functions) {
+            a.locals = new HashSet<>();
+            for (Declaration d : f.params)
+                a.locals.add(d.v);
+            for (Declaration d : f.locals)
+                a.locals.add(d.v);
+            a.locals.add(new Variable(f.id));
+            a.callees = new HashSet<>();
+            calls.put(f, a.callees);
+            if (a.local(f.body))
+                pure.add(f);
+        }
+        boolean changed = true;
+        while (changed) {
+            changed = false;
+            for (Function f : p.functions)
+                if (pure.contains(f) && !pure.containsAll(calls.get(f))) {
+                    pure.remove(f);
+                    changed = true;
+                }
+        }
+        return pure;
+    }
+
+    // 전역변수를 읽거나 쓰지 않으면 참, 호출 대상은 callees에 모은다
+    private boolean local(Statement s) {
+        if (s instanceof Skip)
+            return true;
+        if (s instanceof Assignment a)
+            return local(a.target) && local(a.source);
+        if (s instanceof Conditional c)
+            return local(c.test) && local(c.thenbranch) && local(c.elsebranch);
+        if (s instanceof Loop l)
+            return local(l.test) && local(l.body);
+        if (s instanceof Block b) {
+            for (Statement stmt : b.members)
+                if (!local(stmt))
+                    return false;
+            return true;
+        }
+        if (s instanceof Return r)
+            return local(r.target) && local(r.result);
+        if (s instanceof Expression e)
+            return local(e);
+        throw new IllegalArgumentException("should never reach here");
+    }
+
+    private boolean local(Expression e) {
+        if (e instanceof Value)
+            return true;
+        if (e instanceof ResolvedVariable v)
+            return !v.global;
+        if (e instanceof Variable v)
+            return locals.contains(v);
+        if (e instanceof Binary b)
+            return local(b.term1) && local(b.term2);
+        if (e instanceof Unary u)
+            return local(u.term);
+        if (e instanceof Call c) {
+            callees.add(c.target != null ? c.target : functions.findFunction(c.name));
+            if (c.args != null)
+                for (Expression arg : c.args)
+                    if (!local(arg))
+                        return false;
+            return true;
+        }
+        throw new IllegalArgumentException("should never reach here");
+    }
+} // class Purity
@@ -0,0 +1,116 @@
+// Resolver.java
+
+// Variable resolution for Clite is defined by the function R.
+// After TypeTransformer.T, every Variable reference is rewritten
+// into a ResolvedVariable that carries its memory slot:
+//   global -> index into the global area (declaration order)
+//   local  -> offset from the frame base (dlink)
+// A frame is laid out as params, locals, then the return slot
+// named after the function, so Semantics never searches gamma.
+// Every Call is also linked to its target Function in the output
+// program, so calls never look the function up by name.
+
+import java.util.HashMap;
+
+public class Resolver {
+
+    public static void main(String[] args) {
+        Parser parser = new Parser(new Lexer(args[0]));
+        Program prog = parser.program();
+        StaticTypeCheck.V(prog);
+        Program out = R(TypeTransformer.T(prog));
+        System.out.println("\n\nResolved AST");
+        out.display();
+    } //main
+
+    static Program R(Program p) {
+        HashMap<Variable, Integer> globals = slots(p.globals, 0);
+        // 재귀 호출도 연결할 수 있게 함수를 먼저 만들고 몸체는 나중에 채운다
+        Functions fs = new Functions();
+        for (Function f : p.functions)
+            fs.add(new Function(f.t, f.id, f.params, f.locals, null));
+        for (int i = 0; i < fs.size(); i++) {
+            Function f = fs.get(i);
+            // 매개변수, 지역변수, 반환 슬롯 순서로 프레임 오프셋 부여
+            HashMap<Variable, Integer> locals = slots(f.params, 0);
+            locals.putAll(slots(f.locals, f.params.size()));
+            locals.put(new Variable(f.id), frameSize(f) - 1);
+            f.body = (Block) R(p.functions.get(i).body, fs, globals, locals);
+        }
+        return new Program(p.globals, fs);
+    }
+
+    // 프레임 크기 = 매개변수 + 지역변수 + 반환 슬롯
+    static int frameSize(Function f) {
+        return f.params.size() + f.locals.size() + 1;
+    }
+
+    private static HashMap<Variable, Integer> slots(Declarations ds, int base) {
+        HashMap<Variable, Integer> map = new HashMap<>();
+        for (int i = 0; i < ds.size(); i++)
+            map.put(ds.get(i).v, base + i);
+        return map;
+    }
+
+    static ResolvedVariable R(Variable v, HashMap<Variable, Integer> globals, HashMap<Variable, Integer> locals) {
+        // 지역변수가 같은 이름의 전역변수를 가린다
+        Integer offset = locals.get(v);
+        if (offset != null)
+            return new ResolvedVariable(v, false, offset);
+        offset = globals.get(v);
+        if (offset != null)
+            return new ResolvedVariable(v, true, offset);
+        throw new IllegalArgumentException("Undefined variable: " + v);
+    }
+
+    static Expression R(Expression e, Functions fs, HashMap<Variable, Integer> globals, HashMap<Variable, Integer> locals) {
+        if (e instanceof Value)
+            return e;
+        if (e instanceof Variable v)
+            return R(v, globals, locals);
+        if (e instanceof Binary b)
+            return new Binary(b.op, R(b.term1, fs, globals, locals), R(b.term2, fs, globals, locals));
+        if (e instanceof Unary u)
+            return new Unary(u.op, R(u.term, fs, globals, locals));
+        if (e instanceof Call c)
+            return link(c, fs, globals, locals);
+        throw new IllegalArgumentException("should never reach here");
+    }
+
+    private static Call link(Call c, Functions fs, HashMap<Variable, Integer> globals, HashMap<Variable, Integer> locals) {
+        Call out = new Call(c.name, R(c.args, fs, globals, locals));
+        out.target = fs.findFunction(c.name);
+        return out;
+    }
+
+    static Expressions R(Expressions es, Functions fs, HashMap<Variable, Integer> globals, HashMap<Variable, Integer> locals) {
+        Expressions out = new Expressions();
+        if (es != null)
+            for (Expression e : es)
+                out.add(R(e, fs, globals, locals));
+        return out;
+    }
+
+    static Statement R(Statement s, Functions fs, HashMap<Variable, Integer> globals, HashMap<Variable, Integer> locals) {
+        if (s instanceof Skip)
+            return s;
+        if (s instanceof Assignment a)
+            return new Assignment(R(a.target, globals, locals), R(a.source, fs, globals, locals));
+        if (s instanceof Conditional c)
+            return new Conditional(R(c.test, fs, globals, locals),
+                    R(c.thenbranch, fs, globals, locals), R(c.elsebranch, fs, globals, locals));
+        if (s instanceof Loop l)
+            return new Loop(R(l.test, fs, globals, locals), R(l.body, fs, globals, locals));
+        if (s instanceof Block b) {
+            Block out = new Block();
+            for (Statement stmt : b.members)
+                out.members.add(R(stmt, fs, globals, locals));
+            return out;
+        }
+        if (s instanceof Call c)
+            return link(c, fs, globals, locals);
+        if (s instanceof Return r)
+            return new Return(R(r.target, globals, locals), R(r.result, fs, globals, locals));
+        throw new IllegalArgumentException("should never reach here");
+    }
+} // class Resolver
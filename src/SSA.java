@@ -0,0 +1,716 @@
+// SSA.java
+
+// Static single assignment form of a typed Clite program (after
+// TypeTransformer.T).  S lowers each Function into basic blocks with
+// Phis and explicit def-use chains, and A lowers it back to the AST.
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+
+public class SSA {
+
+    // 명령어: 값 하나를 정의한다 (Store는 값이 없다)
+    static abstract class Instr {
+        int id;
+        Type type;
+        BasicBlock block;
+        Instr[] operands = new Instr[0];
+
+        @Override
+        public String toString() {
+            return "v" + id;
+        }
+
+        // 부작용이 있으면 참 (순서를 바꾸거나 없애면 안 된다)
+        boolean effect() {
+            return false;
+        }
+    }
+
+    static class Const extends Instr {
+        final Value value;
+
+        Const(Value value) {
+            this.value = value;
+            type = value.type();
+        }
+    }
+
+    static class Param extends Instr {
+        final Variable v;
+
+        Param(Variable v, Type t) {
+            this.v = v;
+            type = t;
+        }
+    }
+
+    static class Load extends Instr {
+        final Variable v;   // 전역변수
+
+        Load(Variable v, Type t) {
+            this.v = v;
+            type = t;
+        }
+    }
+
+    static class Store extends Instr {
+        final Variable v;   // 전역변수
+
+        Store(Variable v, Instr value) {
+            this.v = v;
+            operands = new Instr[]{value};
+        }
+
+        @Override
+        boolean effect() {
+            return true;
+        }
+    }
+
+    // Binary (피연산자 2개) 또는 Unary (1개)
+    static class Op extends Instr {
+        final Operator op;
+
+        Op(Operator op, Instr... operands) {
+            this.op = op;
+            this.operands = operands;
+            type = op.opcode.result();
+        }
+    }
+
+    static class Invoke extends Instr {
+        final String name;
+
+        Invoke(String name, Type t, Instr[] args) {
+            this.name = name;
+            type = t;
+            operands = args;
+        }
+
+        @Override
+        boolean effect() {
+            return true;
+        }
+    }
+
+    // operands[i]는 block.preds[i]에서 올 때의 값
+    static class Phi extends Instr {
+        final Variable v;
+
+        Phi(Variable v, Type t, int n) {
+            this.v = v;
+            type = t;
+            operands = new Instr[n];
+        }
+    }
+
+    static class BasicBlock {
+        int id;
+        final ArrayList<Phi> phis = new ArrayList<>();
+        final ArrayList<Instr> instrs = new ArrayList<>();
+        final ArrayList<BasicBlock> preds = new ArrayList<>();
+        final ArrayList<BasicBlock> succs = new ArrayList<>();
+        Instr cond;     // succs가 둘이면 분기 조건 (참이면 succs[0])
+
+        @Override
+        public String toString() {
+            return "b" + id;
+        }
+    }
+
+    // 구조적 제어 흐름: AST로 되돌릴 때 쓴다
+    static abstract class Region {
+    }
+
+    static class Straight extends Region {
+        final BasicBlock block;
+
+        Straight(BasicBlock b) {
+            block = b;
+        }
+    }
+
+    static class Seq extends Region {
+        final ArrayList<Region> regions = new ArrayList<>();
+    }
+
+    // head의 cond로 분기하고 두 갈래가 join에서 만난다
+    static class If extends Region {
+        final BasicBlock head, join;
+        final Seq thenRegion, elseRegion;
+
+        If(BasicBlock head, Seq thenRegion, Seq elseRegion, BasicBlock join) {
+            this.head = head;
+            this.thenRegion = thenRegion;
+            this.elseRegion = elseRegion;
+            this.join = join;
+        }
+    }
+
+    // header의 cond가 참인 동안 body를 반복한다, preds는 (진입, 몸체 끝)
+    static class While extends Region {
+        final BasicBlock header;
+        final Seq body;
+
+        While(BasicBlock header, Seq body) {
+            this.header = header;
+            this.body = body;
+        }
+    }
+
+    // 함수 하나의 SSA 형태
+    static class Graph {
+        final Function function;
+        final ArrayList<BasicBlock> blocks = new ArrayList<>();
+        final Seq body = new Seq();
+        BasicBlock exit;    // 마지막 블록
+        Instr result;       // 반환 변수의 마지막 정의, void 함수는 null
+
+        Graph(Function f) {
+            function = f;
+        }
+    }
+
+    final Declarations globals;
+    final ArrayList<Graph> graphs = new ArrayList<>();
+
+    private Functions functions;
+    private Graph graph;
+    private HashSet<Variable> locals;        // 현재 함수의 매개변수, 지역변수, 반환 변수
+    private HashMap<Variable, Type> types;   // 현재 함수에서 보이는 변수의 타입
+    private HashMap<Variable, Instr> defs;   // 지역변수 -> 지금의 정의
+    private BasicBlock current;
+    private int next;                        // 다음 명령어 번호
+
+    private SSA(Declarations globals) {
+        this.globals = globals;
+    }
+
+    public static void main(String[] args) {
+        Parser parser = new Parser(new Lexer(args[0]));
+        Program prog = parser.program();
+        StaticTypeCheck.V(prog);
+        SSA ssa = S(TypeTransformer.T(prog));
+        System.out.println("\n\nSSA");
+        ssa.display();
+        System.out.println("\n\nAST from SSA");
+        ssa.A().display();
+    } //main
+
+    static SSA S(Program p) {
+        SSA ssa = new SSA(p.globals);
+        ssa.functions = p.functions;
+        for (Function f : p.functions)
+            ssa.graphs.add(ssa.S(f));
+        return ssa;
+    }
+
+    private Graph S(Function f) {
+        graph = new Graph(f);
+        next = 0;
+        types = new HashMap<>();
+        for (Declaration d : globals)
+            types.put(d.v, d.t);
+        locals = new HashSet<>();
+        defs = new HashMap<>();
+        current = block();
+        graph.body.regions.add(new Straight(current));
+        for (Declaration d : f.params) {
+            types.put(d.v, d.t);
+            locals.add(d.v);
+            defs.put(d.v, emit(new Param(d.v, d.t)));
+        }
+        Declarations ds = new Declarations();
+        ds.addAll(f.locals);
+        if (f.t != Type.VOID)
+            ds.add(new Declaration(new Variable(f.id), f.t));
+        for (Declaration d : ds) {
+            types.put(d.v, d.t);
+            locals.add(d.v);
+            defs.put(d.v, emit(new Const(Value.mkValue(d.t))));
+        }
+        S(f.body, graph.body);
+        graph.exit = current;
+        if (f.t != Type.VOID)     // 반환 변수의 마지막 정의가 함수 결과
+            graph.result = defs.get(new Variable(f.id));
+        removeTrivialPhis(graph);
+        removeDeadPhis(graph);
+        return graph;
+    }
+
+    private BasicBlock block(BasicBlock... preds) {
+        BasicBlock b = new BasicBlock();
+        b.id = graph.blocks.size();
+        graph.blocks.add(b);
+        for (BasicBlock p : preds)
+            edge(p, b);
+        return b;
+    }
+
+    private static void edge(BasicBlock from, BasicBlock to) {
+        from.succs.add(to);
+        to.preds.add(from);
+    }
+
+    private Instr emit(Instr i) {
+        i.id = next++;
+        i.block = current;
+        if (i instanceof Phi phi)
+            current.phis.add(phi);
+        else
+            current.instrs.add(i);
+        return i;
+    }
+
+    // seq의 마지막 영역은 항상 Straight(current)
+    private void S(Statement s, Seq seq) {
+        if (s instanceof Skip)
+            return;
+        if (s instanceof Assignment a)
+            assign(a.target, E(a.source));
+        else if (s instanceof Return r)
+            assign(r.target, E(r.result));
+        else if (s instanceof Block b) {
+            for (Statement stmt : b.members) {
+                S(stmt, seq);
+                if (stmt instanceof Return) // Return은 이 Block만 끝낸다
+                    break;
+            }
+        } else if (s instanceof Call c)
+            E(c);
+        else if (s instanceof Conditional c) {
+            BasicBlock head = current;
+            head.cond = E(c.test);
+            seq.regions.remove(seq.regions.size() - 1);
+            HashMap<Variable, Instr> before = defs;
+            Seq thenSeq = new Seq(), elseSeq = new Seq();
+            defs = new HashMap<>(before);
+            current = block(head);
+            thenSeq.regions.add(new Straight(current));
+            S(c.thenbranch, thenSeq);
+            BasicBlock thenEnd = current;
+            HashMap<Variable, Instr> thenDefs = defs;
+            defs = new HashMap<>(before);
+            current = block(head);
+            elseSeq.regions.add(new Straight(current));
+            S(c.elsebranch, elseSeq);
+            BasicBlock elseEnd = current;
+            HashMap<Variable, Instr> elseDefs = defs;
+            current = block(thenEnd, elseEnd);
+            defs = new HashMap<>();
+            for (Variable v : before.keySet()) {
+                Instr t = thenDefs.get(v), e = elseDefs.get(v);
+                if (t == e)
+                    defs.put(v, t);
+                else {
+                    Phi phi = new Phi(v, types.get(v), 2);
+                    phi.operands[0] = t;
+                    phi.operands[1] = e;
+                    defs.put(v, emit(phi));
+                }
+            }
+            seq.regions.add(new If(head, thenSeq, elseSeq, current));
+            seq.regions.add(new Straight(current));
+        } else if (s instanceof Loop l) {
+            HashSet<Variable> assigned = new HashSet<>();
+            ConstantFolding.assigned(l.body, assigned);
+            BasicBlock header = block(current);
+            current = header;
+            ArrayList<Phi> phis = new ArrayList<>();
+            for (Variable v : assigned)
+                if (locals.contains(v)) {
+                    Phi phi = new Phi(v, types.get(v), 2);
+                    phi.operands[0] = defs.get(v);
+                    defs.put(v, emit(phi));
+                    phis.add(phi);
+                }
+            header.cond = E(l.test);
+            HashMap<Variable, Instr> atHeader = new HashMap<>(defs);
+            Seq body = new Seq();
+            current = block(header);
+            body.regions.add(new Straight(current));
+            S(l.body, body);
+            edge(current, header);
+            for (Phi phi : phis)
+                phi.operands[1] = defs.get(phi.v);
+            defs = atHeader;
+            // 조건이 거짓이면 succs[1]로 나간다
+            current = block(header);
+            seq.regions.add(new While(header, body));
+            seq.regions.add(new Straight(current));
+        } else
+            throw new IllegalArgumentException("should never reach here");
+    }
+
+    // 지역변수는 명령어가 아니다: 대입하면 변수가 새 명령어를 가리킨다
+    // 전역은 호출이 바꿀 수 있으므로 Load와 Store로 읽고 쓴다
+    private void assign(Variable target, Instr value) {
+        if (locals.contains(target))
+            defs.put(target, value);
+        else
+            emit(new Store(target, value));
+    }
+
+    private Instr E(Expression e) {
+        if (e instanceof Value v)
+            return emit(new Const(v));
+        if (e instanceof Variable v) {
+            if (locals.contains(v))
+                return defs.get(v);
+            return emit(new Load(v, types.get(v)));
+        }
+        if (e instanceof Binary b) {
+            Instr t1 = E(b.term1);
+            Instr t2 = E(b.term2);
+            return emit(new Op(b.op, t1, t2));
+        }
+        if (e instanceof Unary u)
+            return emit(new Op(u.op, E(u.term)));
+        if (e instanceof Call c) {
+            int n = c.args == null ? 0 : c.args.size();
+            Instr[] args = new Instr[n];
+            for (int i = 0; i < n; i++)
+                args[i] = E(c.args.get(i));
+            return emit(new Invoke(c.name, functions.findFunction(c.name).t, args));
+        }
+        throw new IllegalArgumentException("should never reach here");
+    }
+
+    // 입력이 자기 자신과 값 하나뿐인 Phi는 그 값으로 바꾼다
+    private static void removeTrivialPhis(Graph g) {
+        boolean changed = true;
+        while (changed) {
+            changed = false;
+            for (BasicBlock b : g.blocks)
+                for (Phi phi : new ArrayList<>(b.phis)) {
+                    Instr same = null;
+                    boolean trivial = true;
+                    for (Instr in : phi.operands)
+                        if (in != phi && in != same) {
+                            if (same != null)
+                                trivial = false;
+                            same = in;
+                        }
+                    if (trivial && same != null) {
+                        b.phis.remove(phi);
+                        replace(g, phi, same);
+                        changed = true;
+                    }
+                }
+        }
+    }
+
+    // 쓰이지 않는 Phi를 없앤다 (Phi끼리만 쓰는 순환도 없어진다)
+    private static void removeDeadPhis(Graph g) {
+        HashSet<Phi> live = new HashSet<>();
+        ArrayList<Instr> work = new ArrayList<>();
+        for (BasicBlock b : g.blocks) {
+            for (Instr i : b.instrs)
+                for (Instr in : i.operands)
+                    work.add(in);
+            if (b.cond != null)
+                work.add(b.cond);
+        }
+        if (g.result != null)
+            work.add(g.result);
+        while (!work.isEmpty())
+            if (work.remove(work.size() - 1) instanceof Phi phi && live.add(phi))
+                for (Instr in : phi.operands)
+                    work.add(in);
+        for (BasicBlock b : g.blocks)
+            b.phis.retainAll(live);
+    }
+
+    // old를 쓰는 곳을 모두 by로 바꾼다
+    static void replace(Graph g, Instr old, Instr by) {
+        for (BasicBlock b : g.blocks) {
+            for (Phi phi : b.phis)
+                replace(phi.operands, old, by);
+            for (Instr i : b.instrs)
+                replace(i.operands, old, by);
+            if (b.cond == old)
+                b.cond = by;
+        }
+        if (g.result == old)
+            g.result = by;
+    }
+
+    private static void replace(Instr[] operands, Instr old, Instr by) {
+        for (int k = 0; k < operands.length; k++)
+            if (operands[k] == old)
+                operands[k] = by;
+    }
+
+    // 명령어마다 쓰이는 횟수 (Phi 입력, 분기 조건, 함수 결과 포함)
+    static HashMap<Instr, Integer> uses(Graph g) {
+        HashMap<Instr, Integer> uses = new HashMap<>();
+        for (BasicBlock b : g.blocks) {
+            for (Phi phi : b.phis)
+                for (Instr in : phi.operands)
+                    uses.merge(in, 1, Integer::sum);
+            for (Instr i : b.instrs)
+                for (Instr in : i.operands)
+                    uses.merge(in, 1, Integer::sum);
+            if (b.cond != null)
+                uses.merge(b.cond, 1, Integer::sum);
+        }
+        if (g.result != null)
+            uses.merge(g.result, 1, Integer::sum);
+        return uses;
+    }
+
+    // ---- SSA -> AST ----
+
+    private HashMap<Instr, Integer> uses;
+    private HashMap<Instr, Instr> user;         // 한 번만 쓰이는 명령어 -> 그것을 쓰는 명령어
+    private HashMap<Instr, Variable> names;     // 이름을 붙인 명령어
+    private Declarations temps;
+    private Instr result;                       // 함수 결과
+    private BasicBlock exit;                    // 마지막 블록
+    private Expression returned;                // 마지막 블록에서 식으로 남긴 함수 결과
+
+    Program A() {
+        Functions fs = new Functions();
+        for (Graph g : graphs)
+            fs.add(A(g));
+        return new Program(globals, fs);
+    }
+
+    private Function A(Graph g) {
+        Function f = g.function;
+        uses = uses(g);
+        user = new HashMap<>();
+        for (BasicBlock b : g.blocks)
+            for (Instr i : b.instrs)
+                for (Instr in : i.operands)
+                    user.put(in, i);
+        names = new HashMap<>();
+        temps = new Declarations();
+        returned = null;
+        result = g.result;
+        exit = g.exit;
+        Block body = new Block();
+        A(g.body, body);
+        if (g.result != null)
+            body.members.add(new Return(new Variable(f.id), returned != null ? returned : ref(g.result)));
+        // 원래 지역변수는 모두 _v로 바뀌어 더 이상 쓰이지 않는다
+        return new Function(f.t, f.id, f.params, temps, body);
+    }
+
+    private void A(Region r, Block out) {
+        if (r instanceof Straight s)
+            A(s.block, out);
+        else if (r instanceof Seq seq)
+            for (Region region : seq.regions)
+                A(region, out);
+        else if (r instanceof If c) {
+            Expression test = A(c.head, out);
+            Block thenBlock = new Block(), elseBlock = new Block();
+            A(c.thenRegion, thenBlock);
+            copies(c.join, 0, thenBlock);
+            A(c.elseRegion, elseBlock);
+            copies(c.join, 1, elseBlock);
+            out.members.add(new Conditional(test, thenBlock, elseBlock));
+        } else if (r instanceof While w) {
+            copies(w.header, 0, out);
+            // 헤더의 문장은 반복마다 테스트 전에 실행되어야 한다
+            Expression test = A(w.header, out);
+            Block body = new Block();
+            A(w.body, body);
+            copies(w.header, 1, body);
+            A(w.header, body);
+            out.members.add(new Loop(test, body));
+        } else
+            throw new IllegalArgumentException("should never reach here");
+    }
+
+    // 블록의 명령어를 문장으로 바꾸고, 분기 조건이 있으면 그 식을 돌려준다
+    private Expression A(BasicBlock b, Block out) {
+        ArrayList<Instr> pending = new ArrayList<>();         // 아직 문장이 되지 않은 식
+        HashMap<Instr, Expression> trees = new HashMap<>();
+        for (Instr i : b.instrs) {
+            if (i instanceof Const || i instanceof Param)
+                continue;
+            // 이 명령어 하나에만 쓰이는 피연산자가 계산된 순서대로 pending 맨 위에 있으면 식에 넣는다
+            ArrayList<Instr> inner = new ArrayList<>();
+            for (Instr in : i.operands)
+                if (inline(in, b) && user.get(in) == i && !inner.contains(in))
+                    inner.add(in);
+            int n = pending.size(), k = inner.size();
+            if (n < k || !pending.subList(n - k, n).equals(inner)) {
+                flush(pending, trees, out);
+                inner.clear();
+            } else
+                pending.subList(n - k, n).clear();
+            Expression[] terms = new Expression[i.operands.length];
+            for (int t = 0; t < terms.length; t++) {
+                Instr in = i.operands[t];
+                terms[t] = inner.contains(in) ? trees.remove(in) : ref(in);
+            }
+            Expression e = expression(i, terms);
+            if (i instanceof Store s) {
+                flush(pending, trees, out);
+                out.members.add(new Assignment(s.v, terms[0]));
+            } else if (inline(i, b) || (i == b.cond || b == exit && i == result) && uses.getOrDefault(i, 0) == 1) {
+                trees.put(i, e);
+                pending.add(i);
+            } else if (uses.getOrDefault(i, 0) == 0) {
+                flush(pending, trees, out);
+                // 쓰이지 않는 호출은 호출문, 연산은 undef 검사를 위해 남긴다
+                if (e instanceof Call c)
+                    out.members.add(c);
+                else if (i instanceof Op)
+                    out.members.add(new Assignment(name(i), e));
+            } else {
+                flush(pending, trees, out);
+                out.members.add(new Assignment(name(i), e));
+            }
+        }
+        Expression test = null;
+        if (b.cond != null) {
+            int n = pending.size();
+            if (n > 0 && pending.get(n - 1) == b.cond) {
+                pending.remove(n - 1);
+                test = trees.remove(b.cond);
+            }
+            flush(pending, trees, out);
+            if (test == null)
+                test = ref(b.cond);
+        }
+        int n = pending.size();
+        if (b == exit && n > 0 && pending.get(n - 1) == result) {
+            pending.remove(n - 1);
+            returned = trees.remove(result);
+        }
+        flush(pending, trees, out);
+        return test;
+    }
+
+    // 같은 블록의 명령어 하나에만 쓰이면 그 식 안에 넣는다
+    private boolean inline(Instr i, BasicBlock b) {
+        return !(i instanceof Const || i instanceof Param || i instanceof Phi || i instanceof Store)
+                && i.block == b && uses.getOrDefault(i, 0) == 1 && user.containsKey(i)
+                && user.get(i).block == b;
+    }
+
+    private void flush(ArrayList<Instr> pending, HashMap<Instr, Expression> trees, Block out) {
+        for (Instr i : pending)
+            out.members.add(new Assignment(name(i), trees.remove(i)));
+        pending.clear();
+    }
+
+    private Expression expression(Instr i, Expression[] terms) {
+        if (i instanceof Op op)
+            return terms.length == 2 ? new Binary(op.op, terms[0], terms[1]) : new Unary(op.op, terms[0]);
+        if (i instanceof Invoke c) {
+            Expressions args = new Expressions();
+            for (Expression t : terms)
+                args.add(t);
+            return new Call(c.name, args);
+        }
+        if (i instanceof Load l)
+            return l.v;
+        if (i instanceof Store)
+            return null;
+        throw new IllegalArgumentException("should never reach here");
+    }
+
+    // 이름이나 리터럴로 명령어를 가리킨다
+    private Expression ref(Instr i) {
+        if (i instanceof Const c)
+            return c.value;
+        if (i instanceof Param p)
+            return p.v;
+        return name(i);
+    }
+
+    // 여러 번 쓰이거나 다른 블록 또는 Phi에서 쓰이는 명령어는 지역변수 _v<id>에 담는다
+    private Variable name(Instr i) {
+        Variable v = names.get(i);
+        if (v == null) {
+            v = new Variable("_v" + i.id);
+            names.put(i, v);
+            temps.add(new Declaration(v, i.type));
+        }
+        return v;
+    }
+
+    // pred번째 선행 블록에서 b로 갈 때 Phi에 값을 복사한다 (동시 대입)
+    private void copies(BasicBlock b, int pred, Block out) {
+        ArrayList<Assignment> later = new ArrayList<>();
+        for (Phi phi : b.phis) {
+            Instr in = phi.operands[pred];
+            if (in == phi)
+                continue;
+            if (in instanceof Phi other && b.phis.contains(other)) {
+                // 이미 덮어쓴 Phi를 읽지 않도록 먼저 임시 변수에 옮긴다
+                Variable t = new Variable("_c" + phi.id);
+                if (!containsTemp(t))
+                    temps.add(new Declaration(t, phi.type));
+                out.members.add(new Assignment(t, ref(in)));
+                later.add(new Assignment(name(phi), t));
+            } else
+                later.add(new Assignment(name(phi), ref(in)));
+        }
+        out.members.addAll(later);
+    }
+
+    private boolean containsTemp(Variable v) {
+        for (Declaration d : temps)
+            if (d.v.equals(v))
+                return true;
+        return false;
+    }
+
+    public void display() {
+        for (Graph g : graphs) {
+            System.out.print("\n" + g.function.t + " " + g.function.id);
+            for (BasicBlock b : g.blocks) {
+                StringBuilder s = new StringBuilder("\n  " + b + ":");
+                if (!b.preds.isEmpty())
+                    s.append(" preds");
+                for (BasicBlock p : b.preds)
+                    s.append(" ").append(p);
+                System.out.print(s);
+                for (Phi phi : b.phis)
+                    System.out.print("\n    " + phi + " = phi " + phi.v + " " + list(phi.operands));
+                for (Instr i : b.instrs)
+                    System.out.print("\n    " + display(i));
+                if (b.succs.size() == 2)
+                    System.out.print("\n    if " + b.cond + " goto " + b.succs.get(0) + " else " + b.succs.get(1));
+                else if (b.succs.size() == 1)
+                    System.out.print("\n    goto " + b.succs.get(0));
+                else if (g.result != null)
+                    System.out.print("\n    return " + g.result);
+                else
+                    System.out.print("\n    return");
+            }
+        }
+        System.out.println();
+    }
+
+    private static String display(Instr i) {
+        if (i instanceof Const c)
+            return i + " = const " + c.value;
+        if (i instanceof Param p)
+            return i + " = param " + p.v;
+        if (i instanceof Load l)
+            return i + " = load " + l.v;
+        if (i instanceof Store s)
+            return "store " + s.v + " " + s.operands[0];
+        if (i instanceof Op op)
+            return i + " = " + op.op.val + " " + list(op.operands);
+        if (i instanceof Invoke c)
+            return i + " = call " + c.name + " " + list(c.operands);
+        throw new IllegalArgumentException("should never reach here");
+    }
+
+    private static String list(Instr[] is) {
+        StringBuilder s = new StringBuilder();
+        for (Instr i : is)
+            s.append(s.length() == 0 ? "" : ", ").append(i);
+        return "(" + s + ")";
+    }
+} // class SSA
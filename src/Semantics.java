@@ -6,6 +6,7 @@ public class Semantics {
 
     State sigmag;
     Functions fs;
+    Memo memo; // null이면 캐시하지 않음
 
     public static void main(String[] args) {
         Parser parser = new Parser(new Lexer(args[0]));
@@ -19,10 +20,115 @@ public class Semantics {
         Program out = TypeTransformer.T(prog);
         System.out.println("\n\nOutput AST");
         out.display();
-        Semantics semantics = new Semantics();
-        State state = semantics.M(out);
+        // 나머지 인수: 엔진 이름, -O (최적화), -memo (순수 함수 결과 캐시, -ast와 -exec),
+        // -ssa (SSA 형태를 거쳐 다시 AST로), -tier (자주 실행되는 함수를 컴파일, -exec)
+        String engine = "-ast";
+        boolean optimize = false, memoize = false, ssa = false, tier = false;
+        for (int i = 1; i < args.length; i++) {
+            switch (args[i]) {
+                case "-O" -> optimize = true;
+                case "-memo" -> memoize = true;
+                case "-ssa" -> ssa = true;
+                case "-tier" -> tier = true;
+                default -> engine = args[i];
+            }
+        }
+        if (memoize && !engine.equals("-ast") && !engine.equals("-exec"))
+            throw new IllegalArgumentException("-memo works only with -ast and -exec, not " + engine);
+        if (tier && !engine.equals("-exec"))
+            throw new IllegalArgumentException("-tier works only with -exec, not " + engine);
+        if (optimize) {
+            out = Optimizer.O(out);
+            System.out.println("\n\nOptimized AST");
+            out.display();
+        }
+        if (ssa) {
+            SSA form = SSA.S(out);
+            System.out.println("\n\nSSA");
+            form.display();
+            out = form.A();
+            System.out.println("\n\nAST from SSA");
+            out.display();
+        }
+        Program resolved = Resolver.R(out);
+        Memo memo = memoize ? new Memo(resolved) : null;
+        Tiering tiers = tier ? new Tiering(resolved) : null;
+        String selected = engine;
+        Memo cache = memo;
+        // 깊은 재귀를 위해 큰 Java 스택을 가진 스레드에서 실행
+        // 실행 중 예외는 main 스레드로 옮겨 던지고, 실패한 실행은 0이 아닌 값으로 끝낸다
+        State[] state = new State[1];
+        Throwable[] failure = new Throwable[1];
+        Thread runner = new Thread(null, () -> {
+            try {
+                state[0] = run(resolved, selected, cache, tiers);
+            } catch (Throwable t) {
+                failure[0] = t;
+            }
+        }, "clite", STACK);
+        runner.start();
+        try {
+            runner.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+        }
+        if (failure[0] instanceof RuntimeException e)
+            throw e;
+        if (failure[0] instanceof Error e)
+            throw e;
+        if (state[0] == null)   // 스택 넘침은 run이 알렸다
+            System.exit(1);
+        if (memo != null) {
+            System.out.println();
+            memo.display();
+        }
+        if (tiers != null) {
+            System.out.println();
+            tiers.display();
+        }
         System.out.println("\n\nFinal State");
-        state.display();
+        state[0].display();
+    }
+
+    // 실행 스레드의 Java 스택 크기 (바이트), -Dclite.threadStack=N 으로 바꿀 수 있다
+    final static long STACK = Long.getLong("clite.threadStack", 1L << 30);
+
+    // 선택한 엔진으로 실행, 스택 넘침은 알리고 null 반환
+    static State run(Program out, String engine, Memo memo, Tiering tiers) {
+        try {
+            switch (engine) {
+                case "-vm" -> {
+                    Bytecode code = Bytecode.C(out);
+                    System.out.println("\n\nBytecode");
+                    code.display();
+                    return new VM().run(code);
+                }
+                case "-exec" -> {
+                    return Executor.E(out, memo, tiers).run();
+                }
+                case "-jit" -> {
+                    return Jit.J(out).run();
+                }
+                case "-heap" -> {
+                    return Trampoline.T(out).run();
+                }
+                case "-closure" -> {
+                    return Closures.L(out).run();
+                }
+                case "-ast" -> {
+                    Semantics s = new Semantics();
+                    s.memo = memo;
+                    return s.M(out);
+                }
+                default -> throw new IllegalArgumentException("Unknown engine: " + engine);
+            }
+        } catch (StackOverflowException e) {
+            System.out.println(e.getMessage());
+        } catch (StackOverflowError e) {
+            System.out.println("Stack Overflow!");
+        }
+        return null;
     }
 
     // 프로그램을 가지고 함수와 글로벌 상태 의미 분석
@@ -35,50 +141,32 @@ public class Semantics {
     }
 
     // 메인 함수 의미 분석
-    // 지역변수를 상태에 추가한 후 몸체 의미분석
+    // 지역변수를 전역 영역 바로 위에 할당한 후 몸체 의미분석
     State M(Functions fs, State sigmag) {
         Function main = fs.findFunction("main");
-        State sigma = new State(sigmag);
-        sigma.dlink = sigmag.a;
-        sigma = sigma.allocate(main.locals);
-        sigma = M(main.body, sigma);
-        sigma = sigma.deallocate(main.locals);
-        sigmag = sigmag.onion(sigma);
+        sigmag.dlink = sigmag.a;
+        sigmag = sigmag.allocate(main.locals);
+        sigmag = M(main.body, sigmag);
+        sigmag = sigmag.deallocate(main.locals);
         return sigmag;
     }
 
-    // 함수 호출 위한 글로벌 상태 복사 및 인수와 지역변수 처리
-    State addFrame(State current, Call c, Function f) {
-        State s = new State(current);
-        s = s.minus(current.a - current.dlink);
-        s = s.onion(sigmag);
-        s = s.allocate(f.params);
-        for (int i = 0; i < f.params.size(); i++) {
-            Expression e = c.args.get(i);
-            Declaration d = f.params.get(i);
-            Variable v = d.v;
-            s = s.onion(new State(v, M(e, current)));
-        }
-        s = s.allocate(f.locals);
-        Declarations ds = new Declarations();
-        ds.add(new Declaration(f.id, f.t));
-        s = s.allocate(ds);
-        s.dlink = current.a;
-        return s;
-    }
-
-    // 함수 종료 후 프레임 제거 및 상태 병합
-    State removeFrame(State current, Call c, State former) {
-        Function f = fs.findFunction(c.name);
-        Declarations ds = new Declarations();
-        ds.add(new Declaration(f.id, f.t));
-        State s = current.deallocate(ds);
-        s = s.deallocate(f.locals);
-        s = s.deallocate(f.params);
-        s = s.onion(sigmag);
-        s = s.plus(former);
-        s.dlink = former.dlink;
-        return s;
+    // 호출자 프레임에서 인수를 계산해 스택 꼭대기에 쌓고
+    // 그 위에 지역변수와 반환 슬롯을 할당해 새 프레임을 만든다
+    State addFrame(State sigma, Call c, Function f) {
+        int base = sigma.a;
+        for (int i = 0; i < f.params.size(); i++)
+            sigma = sigma.push(M(c.args.get(i), sigma));
+        sigma = sigma.allocate(f.locals.size() + 1);
+        sigma.dlink = base;
+        return sigma;
+    }
+
+    // 프레임을 통째로 제거하고 호출자의 동적 링크 복원
+    State removeFrame(State sigma, Function f, int dlink) {
+        sigma = sigma.deallocate(Resolver.frameSize(f));
+        sigma.dlink = dlink;
+        return sigma;
     }
 
     State M(Statement s, State sigma) {
@@ -119,35 +207,43 @@ public class Semantics {
             return M(c.elsebranch, sigma);
     }
 
+    // 반복마다 재귀하지 않고 같은 Java 프레임에서 반복
     State M(Loop l, State sigma) {
-        if (M(l.test, sigma).boolValue())
-            return M(l, M(l.body, sigma));
-        else return sigma;
+        while (M(l.test, sigma).boolValue())
+            sigma = M(l.body, sigma);
+        return sigma;
     }
 
     // Call Statement
     State M(Call c, State sigma) {
-        Function f = fs.findFunction(c.name);
-        State sigmaPrime = new State(sigma);
-        sigmaPrime = addFrame(sigmaPrime, c, f);
-        sigmaPrime = M(f.body, sigmaPrime);
-        sigmaPrime = removeFrame(sigmaPrime, c, sigma);
-        return sigmaPrime;
-    }
-
-    // Call Expression
-    Value M(Call c, State sigma, String name) {
-        Function f = fs.findFunction(name);
-        State sigmaPrime = new State(sigma);
-        sigmaPrime = addFrame(sigmaPrime, c, f);
-        sigmaPrime = M(f.body, sigmaPrime);
-        Value v = sigmaPrime.get(new Variable(name));
-        sigmaPrime = removeFrame(sigmaPrime, c, sigma);
+        M(c, sigma, c.target);
+        return sigma;
+    }
+
+    // Call Expression, f는 Resolver.R이 연결해 둔 호출 대상
+    Value M(Call c, State sigma, Function f) {
+        int dlink = sigma.dlink;
+        sigma = addFrame(sigma, c, f);
+        // 순수 함수는 프레임에 쌓인 인수로 이전 결과를 찾는다
+        Memo.Key key = null;
+        if (memo != null && memo.isPure(f)) {
+            key = memo.key(f, sigma.mu, sigma.dlink, f.params.size());
+            Value v = memo.get(key);
+            if (v != null) {
+                removeFrame(sigma, f, dlink);
+                return v;
+            }
+        }
+        sigma = M(f.body, sigma);
+        Value v = sigma.mu.get(sigma.dlink + Resolver.frameSize(f) - 1);
+        sigma = removeFrame(sigma, f, dlink);
+        if (key != null)
+            memo.put(key, v);
         return v;
     }
 
     State M(Return r, State sigma) {
-        return sigma.onion(new State(r.target, M(r.result, sigma)));
+        return sigma.onion(r.target, M(r.result, sigma));
     }
 
     Value M(Expression e, State sigma) {
@@ -162,69 +258,19 @@ public class Semantics {
             return applyUnary(u.op, M(u.term, sigma));
         }
         if (e instanceof Call c) {
-            return M(c, sigma, c.name);
+            return M(c, sigma, c.target);
         }
         throw new IllegalArgumentException("should never reach here");
     }
 
+    // 연산은 TypeTransformer가 정해 둔 opcode의 구현으로 바로 위임
     Value applyBinary(Operator op, Value v1, Value v2) {
         StaticTypeCheck.check(v1.isUndef() || v2.isUndef(), "reference to undef value");
-
-        return switch (op.val) {
-            case Operator.AND -> new BoolValue(v1.boolValue() && v2.boolValue());
-            case Operator.OR -> new BoolValue(v1.boolValue() || v2.boolValue());
-            case Operator.INT_LT -> new BoolValue(v1.intValue() < v2.intValue());
-            case Operator.INT_LE -> new BoolValue(v1.intValue() <= v2.intValue());
-            case Operator.INT_EQ -> new BoolValue(v1.intValue() == v2.intValue());
-            case Operator.INT_NE -> new BoolValue(v1.intValue() != v2.intValue());
-            case Operator.INT_GT -> new BoolValue(v1.intValue() > v2.intValue());
-            case Operator.INT_GE -> new BoolValue(v1.intValue() >= v2.intValue());
-            case Operator.FLOAT_LT -> new BoolValue(v1.floatValue() < v2.floatValue());
-            case Operator.FLOAT_LE -> new BoolValue(v1.floatValue() <= v2.floatValue());
-            case Operator.FLOAT_EQ -> new BoolValue(v1.floatValue() == v2.floatValue());
-            case Operator.FLOAT_NE -> new BoolValue(v1.floatValue() != v2.floatValue());
-            case Operator.FLOAT_GT -> new BoolValue(v1.floatValue() > v2.floatValue());
-            case Operator.FLOAT_GE -> new BoolValue(v1.floatValue() >= v2.floatValue());
-            case Operator.CHAR_LT -> new BoolValue(v1.charValue() < v2.charValue());
-            case Operator.CHAR_LE -> new BoolValue(v1.charValue() <= v2.charValue());
-            case Operator.CHAR_EQ -> new BoolValue(v1.charValue() == v2.charValue());
-            case Operator.CHAR_NE -> new BoolValue(v1.charValue() != v2.charValue());
-            case Operator.CHAR_GT -> new BoolValue(v1.charValue() > v2.charValue());
-            case Operator.CHAR_GE -> new BoolValue(v1.charValue() >= v2.charValue());
-            case Operator.BOOL_LT -> new BoolValue(v1.boolValue() && !v2.boolValue());
-            case Operator.BOOL_LE -> new BoolValue(v1.boolValue() || !v2.boolValue());
-            case Operator.BOOL_EQ -> new BoolValue(v1.boolValue() == v2.boolValue());
-            case Operator.BOOL_NE -> new BoolValue(v1.boolValue() != v2.boolValue());
-            case Operator.BOOL_GT -> new BoolValue(!v1.boolValue() && v2.boolValue());
-            case Operator.BOOL_GE -> new BoolValue(!v1.boolValue() || v2.boolValue());
-            case Operator.INT_PLUS -> new IntValue(v1.intValue() + v2.intValue());
-            case Operator.INT_MINUS -> new IntValue(v1.intValue() - v2.intValue());
-            case Operator.INT_TIMES -> new IntValue(v1.intValue() * v2.intValue());
-            case Operator.INT_DIV -> new IntValue(v1.intValue() / v2.intValue());
-            case Operator.FLOAT_PLUS -> new FloatValue(v1.floatValue() + v2.floatValue());
-            case Operator.FLOAT_MINUS -> new FloatValue(v1.floatValue() - v2.floatValue());
-            case Operator.FLOAT_TIMES -> new FloatValue(v1.floatValue() * v2.floatValue());
-            case Operator.FLOAT_DIV -> new FloatValue(v1.floatValue() / v2.floatValue());
-            default -> throw new IllegalArgumentException("Unknown binary operator " + op.val);
-        };
+        return op.opcode.apply(v1, v2);
     }
 
     Value applyUnary(Operator op, Value v) {
         StaticTypeCheck.check(v.isUndef(), "reference to undef value");
-        if (op.val.equals(Operator.NOT))
-            return new BoolValue(!v.boolValue());
-        if (op.val.equals(Operator.INT_NEG))
-            return new IntValue(-v.intValue());
-        if (op.val.equals(Operator.FLOAT_NEG))
-            return new FloatValue(-v.floatValue());
-        if (op.val.equals(Operator.I2F))
-            return new FloatValue((float) (v.intValue()));
-        if (op.val.equals(Operator.F2I))
-            return new IntValue((int) (v.floatValue()));
-        if (op.val.equals(Operator.C2I))
-            return new IntValue((int) (v.charValue()));
-        if (op.val.equals(Operator.I2C))
-            return new CharValue((char) (v.intValue()));
-        throw new IllegalArgumentException("Unknown unary operator " + op.val);
+        return op.opcode.apply(v);
     }
 }
@@ -0,0 +1,403 @@
+// Simplifier.java
+
+// Algebraic simplification and strength reduction over the typed
+// Program.  Rules are keyed on the typed Opcode of a Binary or Unary
+// and rewrite it into a cheaper expression, e.g.
+//   x INT* 1 => x     x INT* 2 => x INT+ x     0 INT- x => INT- x
+//   x FLOAT/ 4.0 => x FLOAT* 0.25     ! ! b => b     ! (a INT< b) => a INT>= b
+// Expressions are simplified bottom-up and every result is simplified
+// again, so S stops only when no rule applies anywhere.  Float rules
+// are exact in IEEE arithmetic (x FLOAT+ 0.0 is not, for x = -0.0).
+// An operand is never dropped, since it may call a function.  Semantics
+// stops on an undef Unary operand, but a Binary with one undef operand
+// computes with its default (0, false, 0.0).  So a rule that changes how
+// an operand x is used (x INT* 1 => x, x INT* 2 => x INT+ x,
+// 0 INT- x => INT- x, ! ! b => b) fires only when x is defined: an
+// operator, a literal, or a local that every path has assigned a
+// defined value (tracked in known).  A bare operand is also kept in a
+// test, where undef reads as false just like the original expression.
+// fired counts each rule.
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+
+public class Simplifier {
+
+    interface Rewrite {
+        // 규칙이 맞지 않으면 null, test는 조건식 문맥인지 (undef는 false로 읽힌다)
+        Expression apply(Expression e, boolean test);
+    }
+
+    private static class Rule {
+        final String name;
+        final Rewrite rewrite;
+
+        Rule(String name, Rewrite rewrite) {
+            this.name = name;
+            this.rewrite = rewrite;
+        }
+    }
+
+    final LinkedHashMap<String, Integer> fired = new LinkedHashMap<>(); // 규칙 이름 -> 적용 횟수
+    private final EnumMap<Opcode, ArrayList<Rule>> rules = new EnumMap<>(Opcode.class);
+    private HashSet<Variable> locals;  // 현재 함수의 매개변수, 지역변수, 반환 변수
+    private HashSet<Variable> known;   // 모든 경로에서 정의된 값이 대입된 지역변수
+
+    public static void main(String[] args) {
+        Parser parser = new Parser(new Lexer(args[0]));
+        Program prog = parser.program();
+        StaticTypeCheck.V(prog);
+        Simplifier s = new Simplifier();
+        Program out = s.S(TypeTransformer.T(prog));
+        System.out.println("\n\nSimplified AST");
+        out.display();
+        System.out.println("\n" + s);
+    } //main
+
+    Simplifier() {
+        // 정수: 2의 보수 산술이라 결합 법칙이 성립한다
+        rule(Opcode.INT_PLUS, "x INT+ 0 => x", (e, test) -> keep(term1(e), isInt(term2(e), 0), test));
+        rule(Opcode.INT_PLUS, "0 INT+ x => x", (e, test) -> keep(term2(e), isInt(term1(e), 0), test));
+        rule(Opcode.INT_PLUS, "(x INT+ a) INT+ b => x INT+ (a+b)", (e, test) -> reassociate(e));
+        rule(Opcode.INT_MINUS, "x INT- 0 => x", (e, test) -> keep(term1(e), isInt(term2(e), 0), test));
+        rule(Opcode.INT_MINUS, "0 INT- x => INT- x", (e, test) ->
+                unary(Opcode.INT_NEG, term2(e), isInt(term1(e), 0)));
+        rule(Opcode.INT_TIMES, "x INT* 1 => x", (e, test) -> keep(term1(e), isInt(term2(e), 1), test));
+        rule(Opcode.INT_TIMES, "1 INT* x => x", (e, test) -> keep(term2(e), isInt(term1(e), 1), test));
+        rule(Opcode.INT_TIMES, "x INT* 2 => x INT+ x", (e, test) -> twice(Opcode.INT_PLUS, term1(e), isInt(term2(e), 2)));
+        rule(Opcode.INT_TIMES, "2 INT* x => x INT+ x", (e, test) -> twice(Opcode.INT_PLUS, term2(e), isInt(term1(e), 2)));
+        rule(Opcode.INT_TIMES, "x INT* -1 => INT- x", (e, test) ->
+                unary(Opcode.INT_NEG, term1(e), isInt(term2(e), -1)));
+        rule(Opcode.INT_TIMES, "(x INT* a) INT* b => x INT* (a*b)", (e, test) -> reassociate(e));
+        rule(Opcode.INT_DIV, "x INT/ 1 => x", (e, test) -> keep(term1(e), isInt(term2(e), 1), test));
+        rule(Opcode.INT_DIV, "x INT/ -1 => INT- x", (e, test) ->
+                unary(Opcode.INT_NEG, term1(e), isInt(term2(e), -1)));
+        rule(Opcode.INT_NEG, "INT- INT- x => x", (e, test) -> strict(inner(e, Opcode.INT_NEG)));
+        // 실수: IEEE 754에서 결과가 비트까지 같은 규칙만
+        rule(Opcode.FLOAT_MINUS, "x FLOAT- 0.0 => x", (e, test) -> keep(term1(e), isFloat(term2(e), 0.0f), test));
+        rule(Opcode.FLOAT_TIMES, "x FLOAT* 1.0 => x", (e, test) -> keep(term1(e), isFloat(term2(e), 1.0f), test));
+        rule(Opcode.FLOAT_TIMES, "1.0 FLOAT* x => x", (e, test) -> keep(term2(e), isFloat(term1(e), 1.0f), test));
+        rule(Opcode.FLOAT_TIMES, "x FLOAT* 2.0 => x FLOAT+ x", (e, test) ->
+                twice(Opcode.FLOAT_PLUS, term1(e), isFloat(term2(e), 2.0f)));
+        rule(Opcode.FLOAT_TIMES, "2.0 FLOAT* x => x FLOAT+ x", (e, test) ->
+                twice(Opcode.FLOAT_PLUS, term2(e), isFloat(term1(e), 2.0f)));
+        rule(Opcode.FLOAT_TIMES, "x FLOAT* -1.0 => FLOAT- x", (e, test) ->
+                unary(Opcode.FLOAT_NEG, term1(e), isFloat(term2(e), -1.0f)));
+        rule(Opcode.FLOAT_DIV, "x FLOAT/ 1.0 => x", (e, test) -> keep(term1(e), isFloat(term2(e), 1.0f), test));
+        rule(Opcode.FLOAT_DIV, "x FLOAT/ 2^k => x FLOAT* 2^-k", (e, test) -> reciprocal(e));
+        rule(Opcode.FLOAT_NEG, "FLOAT- FLOAT- x => x", (e, test) -> strict(inner(e, Opcode.FLOAT_NEG)));
+        // 논리: 단락 평가가 없으므로 두 피연산자는 항상 계산된다
+        rule(Opcode.NOT, "! ! b => b", (e, test) -> strict(inner(e, Opcode.NOT)));
+        rule(Opcode.NOT, "! (a < b) => a >= b", (e, test) -> negate(e));
+        rule(Opcode.AND, "b && true => b", (e, test) -> keep(term1(e), isBool(term2(e), true), test));
+        rule(Opcode.AND, "true && b => b", (e, test) -> keep(term2(e), isBool(term1(e), true), test));
+        rule(Opcode.OR, "b || false => b", (e, test) -> keep(term1(e), isBool(term2(e), false), test));
+        rule(Opcode.OR, "false || b => b", (e, test) -> keep(term2(e), isBool(term1(e), false), test));
+        rule(Opcode.BOOL_EQ, "b BOOL== true => b", (e, test) -> keep(term1(e), isBool(term2(e), true), test));
+        rule(Opcode.BOOL_EQ, "b BOOL== false => ! b", (e, test) ->
+                unary(Opcode.NOT, term1(e), isBool(term2(e), false)));
+        rule(Opcode.BOOL_NE, "b BOOL!= false => b", (e, test) -> keep(term1(e), isBool(term2(e), false), test));
+        rule(Opcode.BOOL_NE, "b BOOL!= true => ! b", (e, test) ->
+                unary(Opcode.NOT, term1(e), isBool(term2(e), true)));
+        // 형변환: char -> int -> char만 항등이다
+        rule(Opcode.I2C, "I2C C2I c => c", (e, test) -> strict(inner(e, Opcode.C2I)));
+        for (Opcode op : new Opcode[]{Opcode.INT_LT, Opcode.INT_LE, Opcode.INT_EQ,
+                Opcode.INT_NE, Opcode.INT_GT, Opcode.INT_GE})
+            rule(op, "C2I a " + op.symbol + " C2I b => a " + chars(op).symbol + " b", (e, test) -> {
+                Binary b = (Binary) e;
+                Expression c1 = operand(b.term1, Opcode.C2I), c2 = operand(b.term2, Opcode.C2I);
+                return c1 != null && c2 != null && defined(c1) && defined(c2) ? binary(chars(op), c1, c2) : null;
+            });
+    }
+
+    private void rule(Opcode op, String name, Rewrite rewrite) {
+        rules.computeIfAbsent(op, k -> new ArrayList<>()).add(new Rule(name, rewrite));
+        fired.put(name, 0);
+    }
+
+    Program S(Program p) {
+        Functions fs = new Functions();
+        for (Function f : p.functions) {
+            locals = new HashSet<>();
+            for (Declaration d : f.params)
+                locals.add(d.v);
+            for (Declaration d : f.locals)
+                locals.add(d.v);
+            locals.add(new Variable(f.id));
+            known = new HashSet<>();
+            fs.add(new Function(f.t, f.id, f.params, f.locals, (Block) S(f.body)));
+        }
+        return new Program(p.globals, fs);
+    }
+
+    Statement S(Statement s) {
+        if (s instanceof Skip)
+            return s;
+        if (s instanceof Assignment a) {
+            Assignment out = new Assignment(a.target, S(a.source, false));
+            assign(a.target, a.source);
+            return out;
+        }
+        if (s instanceof Conditional c) {
+            Expression test = S(c.test, true);
+            HashSet<Variable> before = new HashSet<>(known);
+            Statement thenbranch = S(c.thenbranch);
+            HashSet<Variable> after = known;
+            known = before;
+            Statement elsebranch = S(c.elsebranch);
+            known.retainAll(after);
+            return new Conditional(test, thenbranch, elsebranch);
+        }
+        if (s instanceof Loop l) {
+            HashSet<Variable> entry = entry(l);
+            known = new HashSet<>(entry);
+            Loop out = new Loop(S(l.test, true), S(l.body));
+            known = entry;
+            return out;
+        }
+        if (s instanceof Block b) {
+            Block out = new Block();
+            HashSet<Variable> exit = null;
+            for (Statement stmt : b.members) {
+                out.members.add(S(stmt));
+                if (stmt instanceof Return && exit == null)  // 블록은 여기서 끝난다
+                    exit = new HashSet<>(known);
+            }
+            if (exit != null)
+                known = exit;
+            return out;
+        }
+        if (s instanceof Call c)
+            return S(c, false);
+        if (s instanceof Return r) {
+            Return out = new Return(r.target, S(r.result, false));
+            assign(r.target, r.result);
+            return out;
+        }
+        throw new IllegalArgumentException("should never reach here");
+    }
+
+    // known을 s를 실행한 뒤의 상태로 바꾼다 (식은 바꾸지 않는다)
+    private void flow(Statement s) {
+        if (s instanceof Assignment a)
+            assign(a.target, a.source);
+        else if (s instanceof Return r)
+            assign(r.target, r.result);
+        else if (s instanceof Conditional c) {
+            HashSet<Variable> before = new HashSet<>(known);
+            flow(c.thenbranch);
+            HashSet<Variable> after = known;
+            known = before;
+            flow(c.elsebranch);
+            known.retainAll(after);
+        } else if (s instanceof Loop l)
+            known = entry(l);
+        else if (s instanceof Block b) {
+            for (Statement stmt : b.members) {
+                flow(stmt);
+                if (stmt instanceof Return)
+                    break;
+            }
+        }
+    }
+
+    // 루프 테스트에서 성립하는 known: 몸체를 몇 번 실행해도 남는 변수
+    private HashSet<Variable> entry(Loop l) {
+        HashSet<Variable> entry = new HashSet<>(known);
+        while (true) {
+            known = new HashSet<>(entry);
+            flow(l.body);
+            known.retainAll(entry);
+            if (known.equals(entry))
+                return entry;
+            entry = known;
+        }
+    }
+
+    private void assign(Variable target, Expression source) {
+        if (!locals.contains(target))
+            return;
+        if (defined(source))
+            known.add(target);
+        else
+            known.remove(target);
+    }
+
+    // undef일 수 없는 식: 연산자, undef가 아닌 상수, known의 지역변수
+    // (연산자는 값이 나오거나 프로그램을 멈춘다)
+    private boolean defined(Expression e) {
+        return e instanceof Binary || e instanceof Unary
+                || e instanceof Value v && !v.undef || e instanceof Variable v && known.contains(v);
+    }
+
+    // test가 참이면 조건식, 아니면 대입, 인수, 반환이나 연산자의 피연산자
+    Expression S(Expression e, boolean test) {
+        if (e instanceof Value || e instanceof Variable)
+            return e;
+        if (e instanceof Call c) {
+            Expressions args = new Expressions();
+            if (c.args != null)
+                for (Expression arg : c.args)
+                    args.add(S(arg, false));
+            return new Call(c.name, args);
+        }
+        Operator op;
+        if (e instanceof Binary b) {
+            op = b.op;
+            e = new Binary(b.op, S(b.term1, false), S(b.term2, false));
+        } else if (e instanceof Unary u) {
+            op = u.op;
+            e = new Unary(u.op, S(u.term, false));
+        } else
+            throw new IllegalArgumentException("should never reach here");
+        if (op.opcode == null || !rules.containsKey(op.opcode))
+            return e;
+        for (Rule r : rules.get(op.opcode)) {
+            Expression out = r.rewrite.apply(e, test);
+            if (out != null) {
+                fired.merge(r.name, 1, Integer::sum);
+                return S(out, test); // 바뀐 식에 다시 규칙을 적용한다
+            }
+        }
+        return e;
+    }
+
+    private static Expression term1(Expression e) {
+        return ((Binary) e).term1;
+    }
+
+    private static Expression term2(Expression e) {
+        return ((Binary) e).term2;
+    }
+
+    // e의 피연산자가 op 연산이면 그 피연산자
+    private static Expression inner(Expression e, Opcode op) {
+        return operand(((Unary) e).term, op);
+    }
+
+    private static Expression operand(Expression e, Opcode op) {
+        return e instanceof Unary u && u.op.opcode == op ? u.term : null;
+    }
+
+    // 피연산자만 남기는 규칙: 조건식이 아니면 그 피연산자가 정의되었을 때만
+    private Expression keep(Expression x, boolean match, boolean test) {
+        if (x == null || !match)
+            return null;
+        return test || defined(x) ? x : null;
+    }
+
+    // 단항 연산을 지우는 규칙: undef 검사가 사라지므로 정의되었을 때만
+    private Expression strict(Expression x) {
+        return x != null && defined(x) ? x : null;
+    }
+
+    // 두 번 읽어도 되는 변수만 x op x로 바꾼다
+    private Expression twice(Opcode op, Expression x, boolean match) {
+        return match && x instanceof Variable && defined(x) ? binary(op, x, x) : null;
+    }
+
+    // 이항 연산을 단항 연산으로 바꾸는 규칙
+    private Expression unary(Opcode op, Expression x, boolean match) {
+        return match && defined(x) ? unary(op, x) : null;
+    }
+
+    // (x op a) op b => x op (a op b)
+    private static Expression reassociate(Expression e) {
+        Binary b = (Binary) e;
+        if (b.term1 instanceof Binary inner && inner.op == b.op
+                && inner.term2 instanceof IntValue a && !a.undef
+                && b.term2 instanceof IntValue c && !c.undef)
+            return binary(b.op.opcode, inner.term1, b.op.opcode.apply(a, c));
+        return null;
+    }
+
+    // 2의 거듭제곱으로 나누기는 그 역수를 곱한 것과 비트까지 같다
+    private static Expression reciprocal(Expression e) {
+        Binary b = (Binary) e;
+        if (!(b.term2 instanceof FloatValue v) || v.undef)
+            return null;
+        float d = v.floatValue();
+        int k = Math.getExponent(d);
+        if (d == 0 || Math.abs(d) != Math.scalb(1.0f, k) || k == 0
+                || k <= Float.MIN_EXPONENT || k >= Float.MAX_EXPONENT)
+            return null;
+        return binary(Opcode.FLOAT_TIMES, b.term1, new FloatValue(1 / d));
+    }
+
+    // 정수, 문자, 논리 비교의 부정은 반대 비교 (실수는 NaN 때문에 제외)
+    private static Expression negate(Expression e) {
+        if (!(((Unary) e).term instanceof Binary b) || b.op.opcode == null)
+            return null;
+        Opcode op = switch (b.op.opcode) {
+            case INT_LT -> Opcode.INT_GE;
+            case INT_LE -> Opcode.INT_GT;
+            case INT_EQ -> Opcode.INT_NE;
+            case INT_NE -> Opcode.INT_EQ;
+            case INT_GT -> Opcode.INT_LE;
+            case INT_GE -> Opcode.INT_LT;
+            case CHAR_LT -> Opcode.CHAR_GE;
+            case CHAR_LE -> Opcode.CHAR_GT;
+            case CHAR_EQ -> Opcode.CHAR_NE;
+            case CHAR_NE -> Opcode.CHAR_EQ;
+            case CHAR_GT -> Opcode.CHAR_LE;
+            case CHAR_GE -> Opcode.CHAR_LT;
+            case BOOL_LT -> Opcode.BOOL_GE;
+            case BOOL_LE -> Opcode.BOOL_GT;
+            case BOOL_EQ -> Opcode.BOOL_NE;
+            case BOOL_NE -> Opcode.BOOL_EQ;
+            case BOOL_GT -> Opcode.BOOL_LE;
+            case BOOL_GE -> Opcode.BOOL_LT;
+            default -> null;
+        };
+        return op == null ? null : binary(op, b.term1, b.term2);
+    }
+
+    private static Opcode chars(Opcode op) {
+        return switch (op) {
+            case INT_LT -> Opcode.CHAR_LT;
+            case INT_LE -> Opcode.CHAR_LE;
+            case INT_EQ -> Opcode.CHAR_EQ;
+            case INT_NE -> Opcode.CHAR_NE;
+            case INT_GT -> Opcode.CHAR_GT;
+            case INT_GE -> Opcode.CHAR_GE;
+            default -> throw new IllegalArgumentException("should never reach here");
+        };
+    }
+
+    private static boolean isInt(Expression e, int n) {
+        return e instanceof IntValue v && !v.undef && v.intValue() == n;
+    }
+
+    private static boolean isFloat(Expression e, float f) {
+        // 0.0과 -0.0을 구별한다
+        return e instanceof FloatValue v && !v.undef
+                && Float.floatToRawIntBits(v.floatValue()) == Float.floatToRawIntBits(f);
+    }
+
+    private static boolean isBool(Expression e, boolean b) {
+        return e instanceof BoolValue v && !v.undef && v.boolValue() == b;
+    }
+
+    private static Expression binary(Opcode op, Expression t1, Expression t2) {
+        return new Binary(Operator.of(op), t1, t2);
+    }
+
+    private static Expression unary(Opcode op, Expression t) {
+        return new Unary(Operator.of(op), t);
+    }
+
+    @Override
+    public String toString() {
+        int total = 0;
+        StringBuilder s = new StringBuilder();
+        for (String name : fired.keySet()) {
+            int n = fired.get(name);
+            total += n;
+            if (n > 0)
+                s.append("\n    ").append(name).append(": ").append(n);
+        }
+        return "algebraic simplification: " + total + " rewrites" + s;
+    }
+} // class Simplifier
@@ -1,4 +1,5 @@
 import java.util.ArrayList;
+import java.util.Arrays;
 
 public class State implements Cloneable {
     Environment gamma;
@@ -9,7 +10,7 @@ public class State implements Cloneable {
 
     State() {
         gamma = new Environment();
-        mu = new Memory(16);
+        mu = new Memory(Memory.SEGMENT);
         a = slink = dlink = 0;
     }
 
@@ -21,78 +22,62 @@ public class State implements Cloneable {
         dlink = s.dlink;
     }
 
-    State(Variable key, Value val) {
-        this();
-        gamma.add(new Pair(key, a));
-        mu.set(a, val);
-        a++;
-    }
-
-
     // 메모리에 공간 할당 후 undef로 초기화
     State allocate(Declarations ds) {
-        if (a + ds.size() < mu.size()) {
-            for (Declaration d : ds) {
-                gamma.add(new Pair(d.v, a));
-                mu.set(a, Value.mkValue(Type.UNDEFINED));
-                a++;
-            }
-        } else {
-            System.out.println("Stack Overflow!");
-            System.exit(0);
+        mu.ensure(a + ds.size());
+        for (Declaration d : ds) {
+            gamma.add(new Pair(d.v, a));
+            mu.mark(a, Memory.UNDEF);
+            a++;
         }
         return this;
     }
 
-    // 메모리 공간 반환 후 unused로 초기화
-    State deallocate(Declarations ds) {
-        for (int i = ds.size() - 1; i >= 0; i--) {
-            gamma.remove(gamma.size() - 1);
-            a--;
-            mu.set(a, Value.mkValue(Type.UNUSED));
-        }
+    // 이름 없는 프레임 슬롯 n개 할당 후 undef로 초기화
+    State allocate(int n) {
+        mu.ensure(a + n);
+        for (int i = 0; i < n; i++)
+            mu.mark(a++, Memory.UNDEF);
         return this;
     }
 
-    // former 상태에서 현재 상태로 추가
-    State plus(State former) {
-        for (int i = former.slink; i < former.gamma.size(); i++) {
-            Pair p = former.gamma.get(i);
-            gamma.add(p);
-        }
+    // 스택 꼭대기에 값 하나를 쌓는다 (인수 전달)
+    State push(Value val) {
+        mu.ensure(a + 1);
+        mu.set(a++, val);
         return this;
     }
 
-    // gamma에서 마지막 n개 변수 삭제
-    State minus(int n) {
-        for (int i = 0; i < n; i++)
-            gamma.remove(gamma.size() - 1);
+    // 태그와 비트를 그대로 쌓는다 (Value를 만들지 않는 인수 전달)
+    State push(byte tag, long bits) {
+        mu.ensure(a + 1);
+        mu.set(a++, tag, bits);
         return this;
     }
 
-    State onion(Variable key, Value val) {
-        put(key, val);
+    // 메모리 공간 반환 후 unused로 초기화
+    State deallocate(Declarations ds) {
+        for (int i = ds.size() - 1; i >= 0; i--)
+            gamma.remove(gamma.size() - 1);
+        return deallocate(ds.size());
+    }
+
+    State deallocate(int n) {
+        for (int i = 0; i < n; i++)
+            mu.mark(--a, Memory.UNUSED);
         return this;
     }
 
-    State onion(State t) {
-        for (int i = 0; i < t.gamma.size(); i++) {
-            Variable key = t.gamma.get(i).v;
-            Value tvalue = t.get(key);
-            if (gamma.contains(key)) {
-                int address = getAddress(key);
-                mu.set(address, tvalue);
-            } else {
-                int taddress = t.getAddress(key);
-                gamma.add(new Pair(key, taddress));
-                mu.set(taddress, tvalue);
-            }
-        }
+    State onion(Variable key, Value val) {
+        put(key, val);
         return this;
     }
 
     void put(Variable key, Value val) {
-        if (!contains(key)) {
+        if (key instanceof ResolvedVariable) {
+            mu.set(getAddress(key), val);
+        } else if (!contains(key)) {
+            mu.ensure(a + 1);
             gamma.add(new Pair(key, a));
             mu.set(a, val);
             a++;
@@ -116,6 +101,9 @@ public class State implements Cloneable {
     }
 
     int getAddress(Variable key) {
+        // 해석된 변수는 gamma 탐색 없이 슬롯으로 바로 접근
+        if (key instanceof ResolvedVariable r)
+            return r.global ? r.offset : dlink + r.offset;
         for (Pair p : gamma)
             if (p.v.equals(key))
                 return p.addr;
@@ -175,22 +163,125 @@ class Environment extends ArrayList<Pair> {
     }
 }
 
-class Memory extends ArrayList<Value> {
-    int size;
+class Memory {
+    // 슬롯마다 long 값 하나와 태그 바이트 하나 (9 바이트)
+    // int, char, bool은 정수 값으로, float는 비트 패턴으로 저장
+    // undef와 unused는 태그로만 표시하고 값은 쓰지 않는다
+    final static byte UNUSED = 0;
+    final static byte UNDEF = 1;
+    final static byte INT = 2;
+    final static byte BOOL = 3;
+    final static byte CHAR = 4;
+    final static byte FLOAT = 5;
+
+    // 슬롯은 고정 크기 세그먼트에 나눠 담고 필요할 때 세그먼트를 덧붙인다
+    // 이미 있는 세그먼트는 옮기지 않으므로 자라도 슬롯 복사가 없다
+    final static int SHIFT = 10;
+    final static int SEGMENT = 1 << SHIFT;
+    final static int MASK = SEGMENT - 1;
+    // 최대 슬롯 수, -Dclite.stack=N 으로 바꿀 수 있다
+    final static int LIMIT = Integer.getInteger("clite.stack", 1 << 20);
+
+    long[][] slots;
+    byte[][] tags;
+    private int segments;
 
     public Memory(int size) {
-        super();
-        this.size = size;
-        for (int i = 0; i < size; i++) {
-            this.add(new UnusedValue());
-        }
+        slots = new long[4][];
+        tags = new byte[4][];
+        ensure(size);
     }
 
     public Memory(Memory m) {
-        super();
-        this.size = m.size;
-        for (int i = 0; i < m.size(); i++)
-            this.add(m.get(i).clone());
+        segments = m.segments;
+        slots = new long[m.slots.length][];
+        tags = new byte[m.tags.length][];
+        for (int s = 0; s < segments; s++) {
+            slots[s] = m.slots[s].clone();
+            tags[s] = m.tags[s].clone();
+        }
+    }
+
+    int size() {
+        return segments << SHIFT;
+    }
+
+    // 슬롯 0..n-1을 쓸 수 있게 세그먼트를 덧붙인다
+    void ensure(int n) {
+        if (n <= size())
+            return;
+        if (n > LIMIT)
+            throw new StackOverflowException(LIMIT);
+        while (size() < n) {
+            if (segments == slots.length) {
+                slots = Arrays.copyOf(slots, 2 * segments);
+                tags = Arrays.copyOf(tags, 2 * segments);
+            }
+            slots[segments] = new long[SEGMENT];
+            tags[segments] = new byte[SEGMENT];
+            segments++;
+        }
+    }
+
+    byte tag(int i) {
+        return tags[i >>> SHIFT][i & MASK];
+    }
+
+    long bits(int i) {
+        return slots[i >>> SHIFT][i & MASK];
+    }
+
+    Value get(int i) {
+        long v = bits(i);
+        return switch (tag(i)) {
+            case INT -> IntValue.of((int) v);
+            case BOOL -> BoolValue.of(v != 0);
+            case CHAR -> CharValue.of((char) v);
+            case FLOAT -> new FloatValue(Float.intBitsToFloat((int) v));
+            case UNDEF -> UndefinedValue.UNDEF;
+            default -> UnusedValue.UNUSED;
+        };
+    }
+
+    void set(int i, Value val) {
+        Type t = val.type();
+        if (t == Type.UNUSED) {
+            mark(i, UNUSED);
+        } else if (val.undef) {
+            mark(i, UNDEF);
+        } else if (t == Type.INT) {
+            set(i, INT, val.intValue());
+        } else if (t == Type.BOOL) {
+            set(i, BOOL, val.boolValue() ? 1 : 0);
+        } else if (t == Type.CHAR) {
+            set(i, CHAR, val.charValue());
+        } else if (t == Type.FLOAT) {
+            set(i, FLOAT, Float.floatToRawIntBits(val.floatValue()));
+        } else {
+            throw new IllegalArgumentException("Illegal type in memory: " + t);
+        }
+    }
+
+    void set(int i, byte tag, long bits) {
+        tags[i >>> SHIFT][i & MASK] = tag;
+        slots[i >>> SHIFT][i & MASK] = bits;
+    }
+
+    // 슬롯을 undef 또는 unused로 표시
+    void mark(int i, byte tag) {
+        tags[i >>> SHIFT][i & MASK] = tag;
     }
 }
 
+// 런타임 스택이 Memory.LIMIT를 넘으면 발생
+class StackOverflowException extends RuntimeException {
+    private static final long serialVersionUID = 1L;
+
+    StackOverflowException() {
+        super("Stack Overflow!");
+    }
+
+    StackOverflowException(int limit) {
+        super("Stack Overflow! (limit " + limit + " slots)");
+    }
+}
@@ -117,7 +117,8 @@ public class StaticTypeCheck {
         }
         if (e instanceof Call c) {
             check(tm.containsKey(new Variable(c.name)), "undefined name: " + c.name);
-            return tm.get(new Variable(c.name));
+            Type t = tm.get(new Variable(c.name));
+            return t instanceof ProtoType p ? p.result : t; // 호출식의 타입은 반환 타입
         }
         throw new IllegalArgumentException("should never reach here");
     }
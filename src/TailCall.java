@@ -0,0 +1,132 @@
+// TailCall.java
+
+// Tail-call elimination for self-recursive functions, run first by
+// Optimizer.O.  Because a Return ends only its own Block, a statement
+// is in tail position when nothing of the function can run after it:
+// the body is, each branch of a Conditional in tail position is, and
+// so is the last member of a Block in tail position or a member that
+// is a Return.  A tail call is
+//   return f(a1, ..., an);   in f, or
+//   f(a1, ..., an);          in f returning void
+// in tail position.  E rewrites such a function f into
+//   { _again = true; while (_again) { _again = false; body' } }
+// where each tail call in body' becomes
+//   { _arg1 = a1; ... _argn = an; x1 = _arg1; ... xn = _argn;
+//     locals = undef; f = undef; _again = true; }
+// The arguments are evaluated in order into temporaries before any
+// parameter changes, and the locals and the return slot start undef as
+// in a new frame.  So the recursion runs in one frame, without the
+// Java or Memory stack growing, and a recursion that would overflow
+// the stack now completes.
+
+public class TailCall {
+
+    int calls;     // 반복으로 바꾼 꼬리 호출 수
+    int functions; // 반복으로 바꾼 함수 수
+
+    private Function f;             // 현재 함수
+    private Variable again;         // 다시 반복할지 나타내는 지역변수
+    private Declarations temps;     // 인수를 담을 임시 변수
+
+    public static void main(String[] args) {
+        Parser parser = new Parser(new Lexer(args[0]));
+        Program prog = parser.program();
+        StaticTypeCheck.V(prog);
+        TailCall tc = new TailCall();
+        Program out = tc.E(TypeTransformer.T(prog));
+        System.out.println("\n\nAST after tail-call elimination");
+        out.display();
+        System.out.println("\n" + tc);
+    } //main
+
+    Program E(Program p) {
+        Functions fs = new Functions();
+        for (Function fn : p.functions)
+            fs.add(E(fn));
+        return new Program(p.globals, fs);
+    }
+
+    private Function E(Function fn) {
+        f = fn;
+        again = new Variable("_again");
+        temps = new Declarations();
+        int before = calls;
+        Statement body = tail(fn.body);
+        if (calls == before)
+            return fn;
+        functions++;
+        Block loopBody = new Block();
+        loopBody.members.add(new Assignment(again, BoolValue.FALSE));
+        loopBody.members.add(body);
+        Block out = new Block();
+        out.members.add(new Assignment(again, BoolValue.TRUE));
+        out.members.add(new Loop(again, loopBody));
+        Declarations locals = new Declarations();
+        locals.addAll(fn.locals);
+        locals.add(new Declaration(again, Type.BOOL));
+        locals.addAll(temps);
+        return new Function(fn.t, fn.id, fn.params, locals, out);
+    }
+
+    // 꼬리 위치의 문장 s에서 꼬리 호출을 바꾼다
+    private Statement tail(Statement s) {
+        if (s instanceof Block b) {
+            Block out = new Block();
+            int n = b.members.size();
+            for (int i = 0; i < n; i++) {
+                Statement m = b.members.get(i);
+                if (m instanceof Return) {
+                    out.members.add(tail(m));
+                    break; // 뒤의 문장은 실행되지 않는다
+                }
+                out.members.add(i == n - 1 ? tail(m) : m);
+            }
+            return out;
+        }
+        if (s instanceof Conditional c)
+            return new Conditional(c.test, tail(c.thenbranch), tail(c.elsebranch));
+        if (s instanceof Return r && r.result instanceof Call c && c.name.equals(f.id))
+            return jump(c);
+        if (s instanceof Call c && c.name.equals(f.id) && f.t == Type.VOID)
+            return jump(c);
+        return s;
+    }
+
+    // 인수를 임시 변수에 계산한 뒤 매개변수에 옮기고 새 프레임처럼 지역변수를 비운다
+    private Statement jump(Call c) {
+        calls++;
+        Block out = new Block();
+        Variable[] args = new Variable[f.params.size()];
+        for (int i = 0; i < args.length; i++) {
+            Declaration d = f.params.get(i);
+            Expression arg = c.args.get(i);
+            if (arg instanceof Variable v && v.equals(d.v))
+                continue;   // 자기 자신을 넘기면 옮길 필요가 없다
+            args[i] = temp(i, d.t);
+            out.members.add(new Assignment(args[i], arg));
+        }
+        for (int i = 0; i < args.length; i++)
+            if (args[i] != null)
+                out.members.add(new Assignment(f.params.get(i).v, args[i]));
+        for (Declaration d : f.locals)
+            out.members.add(new Assignment(d.v, Value.mkValue(d.t)));
+        if (f.t != Type.VOID)
+            out.members.add(new Assignment(new Variable(f.id), Value.mkValue(f.t)));
+        out.members.add(new Assignment(again, BoolValue.TRUE));
+        return out;
+    }
+
+    private Variable temp(int i, Type t) {
+        Variable v = new Variable("_arg" + i);
+        for (Declaration d : temps)
+            if (d.v.equals(v))
+                return v;
+        temps.add(new Declaration(v, t));
+        return v;
+    }
+
+    @Override
+    public String toString() {
+        return "tail calls: " + calls + " self tail calls in " + functions + " functions turned into loops";
+    }
+} // class TailCall
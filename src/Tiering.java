@@ -0,0 +1,103 @@
+// Tiering.java
+
+// Tier-up policy for the Executor (Semantics -exec -tier).  Hot
+// functions and loops are compiled by Jit on a background thread while
+// the interpreter keeps running them; each event goes to a log.
+
+import java.util.ArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+class Tiering {
+    final static int THRESHOLD = Integer.getInteger("clite.tier", 1000);
+    final static int OSR = Integer.getInteger("clite.osr", 10000);
+
+    private final Program program;
+    private final ExecutorService compiler = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "clite-jit");
+        t.setDaemon(true);
+        return t;
+    });
+    private final ArrayList<String> log = new ArrayList<>();
+    private final long start = System.nanoTime();
+
+    Tiering(Program p) {
+        program = p;
+    }
+
+    // 호출 또는 반복 한 번, 문턱에 닿으면 백그라운드 컴파일을 요청
+    // main은 다시 호출되지 않으므로 세지 않는다, main의 루프는 OSR로 컴파일된다
+    // 컴파일이 끝나면 다음 호출부터 컴파일된 코드로 실행한다 (CallNode)
+    void count(FunctionNode fn) {
+        if (fn.function.id.equals("main") || ++fn.count != THRESHOLD)
+            return;
+        log(fn.function.id + ": hot after " + THRESHOLD + " calls and loop iterations, compiling");
+        compiler.execute(() -> {
+            long t = System.nanoTime();
+            try {
+                Jit jit = Jit.J(program, fn.function);
+                log(fn.function.id + ": compiled with " + (jit.compiled - 1) + " callees in "
+                        + (System.nanoTime() - t) / 1000 + " us");
+                fn.compiled = jit;
+            } catch (RuntimeException e) {
+                log(fn.function.id + ": stays interpreted, " + e.getMessage());
+            }
+        });
+    }
+
+    // 루프 몸체를 한 번 실행한 뒤 불린다.  컴파일된 루프에서 끝까지 실행했으면 참
+    // 프레임과 전역을 컴파일된 루프로 옮겨 테스트부터 끝까지 실행하고 되돌려 쓴다
+    boolean backEdge(LoopNode l, State sigma) {
+        count(l.owner);
+        Jit jit = l.compiled;
+        if (jit == null) {
+            if (++l.count == OSR)
+                compile(l);
+            return false;
+        }
+        if (!l.entered) {
+            l.entered = true;
+            log(name(l) + ": entered compiled loop after " + l.count + " iterations");
+        }
+        jit.osr(l.owner.function, sigma.mu, sigma.dlink, sigma.a - sigma.dlink);
+        return true;
+    }
+
+    private void compile(LoopNode l) {
+        log(name(l) + ": hot after " + OSR + " iterations, compiling for on-stack replacement");
+        compiler.execute(() -> {
+            long t = System.nanoTime();
+            try {
+                Jit jit = Jit.J(program, l.owner.function, l.loop);
+                log(name(l) + ": compiled with " + jit.compiled + " callees in "
+                        + (System.nanoTime() - t) / 1000 + " us");
+                l.compiled = jit;
+            } catch (RuntimeException e) {
+                log(name(l) + ": stays interpreted, " + e.getMessage());
+            }
+        });
+    }
+
+    private static String name(LoopNode l) {
+        return l.owner.function.id + " loop " + l.index;
+    }
+
+    // 컴파일된 코드로 처음 들어갈 때
+    void entered(FunctionNode fn) {
+        log(fn.function.id + ": switched to compiled code after " + fn.count + " calls and loop iterations");
+    }
+
+    synchronized void log(String event) {
+        log.add(String.format("%8.3f ms  %s", (System.nanoTime() - start) / 1e6, event));
+    }
+
+    void shutdown() {
+        compiler.shutdownNow();
+    }
+
+    public synchronized void display() {
+        System.out.println("Tier-up log (threshold " + THRESHOLD + "):");
+        for (String event : log)
+            System.out.println("  " + event);
+    }
+}
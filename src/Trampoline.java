@@ -0,0 +1,231 @@
+// Trampoline.java
+
+// Heap-frame interpreter for a resolved Clite program (Semantics -heap).
+// The meaning of every construct is that of M in Semantics, but
+// nothing recurses in Java: what is left to do is kept as tasks on an
+// explicit continuation stack, operands waiting for their operator on
+// a value stack, and Clite frames in State's Memory as usual.  run is
+// one loop that pops a task and performs it, pushing the tasks that
+// follow.  So the Clite call depth is limited only by Memory.LIMIT
+// (-Dclite.stack=N), never by the Java thread stack, and the debug
+// main below runs on the default stack.
+//   EXEC s        run Statement s
+//   EVAL e        push the Value of Expression e
+//   BLOCK b, i    run members i.. of Block b (stops after a Return)
+//   LOOP l        pop the test; if true run the body and test again
+//   BRANCH c      pop the test and run one branch
+//   ASSIGN v      pop a Value into variable v
+//   BINARY, UNARY pop the operands and push the result
+//   ARG           pop an argument onto the stack top (addFrame)
+//   ENTER f       allocate f's locals and return slot, run f's body
+//   LEAVE f       push f's return slot, remove f's frame (removeFrame)
+//   DISCARD       pop the Value of a call statement
+
+import java.util.Arrays;
+
+public class Trampoline {
+    private final static int EXEC = 0, EVAL = 1, BLOCK = 2, LOOP = 3, BRANCH = 4, ASSIGN = 5,
+            BINARY = 6, UNARY = 7, ARG = 8, ENTER = 9, LEAVE = 10, DISCARD = 11;
+
+    private final Program program;
+
+    // 연속 스택: 작업 종류, 대상 노드, 정수 인자 (Block의 다음 문장 번호)
+    private int[] ops = new int[Memory.SEGMENT];
+    private Object[] nodes = new Object[Memory.SEGMENT];
+    private int[] ints = new int[Memory.SEGMENT];
+    private int top;
+
+    // 연산자를 기다리는 값, 호출자의 동적 링크
+    private Value[] values = new Value[Memory.SEGMENT];
+    private int vp;
+    private int[] links = new int[Memory.SEGMENT];
+    private int lp;
+
+    long steps, maxDepth; // 실행한 작업 수, 가장 깊은 호출 깊이
+
+    public static void main(String[] args) {
+        Parser parser = new Parser(new Lexer(args[0]));
+        Program prog = parser.program();
+        StaticTypeCheck.V(prog);
+        Trampoline t = T(Resolver.R(TypeTransformer.T(prog)));
+        State state;
+        try {
+            state = t.run();    // 기본 Java 스택에서 실행
+        } catch (StackOverflowException e) {
+            System.out.println(e.getMessage());
+            return;
+        }
+        System.out.println("\n\nFinal State");
+        state.display();
+        System.out.println(t);
+    } //main
+
+    static Trampoline T(Program p) {
+        return new Trampoline(p);
+    }
+
+    private Trampoline(Program p) {
+        program = p;
+    }
+
+    // Semantics.M(Program)처럼 전역과 main 지역변수를 할당한 뒤 작업이 없을 때까지 실행
+    State run() {
+        State sigma = new State();
+        sigma = sigma.allocate(program.globals);
+        sigma.dlink = sigma.slink = sigma.a;
+        Function main = program.functions.findFunction("main");
+        sigma = sigma.allocate(main.locals);
+        push(EXEC, main.body, 0);
+        while (top > 0) {
+            top--;
+            step(ops[top], nodes[top], ints[top], sigma);
+            steps++;
+        }
+        sigma = sigma.deallocate(main.locals);
+        return sigma;
+    }
+
+    private void step(int op, Object node, int i, State sigma) {
+        switch (op) {
+            case EXEC -> exec((Statement) node);
+            case EVAL -> eval((Expression) node, sigma);
+            case BLOCK -> {
+                Block b = (Block) node;
+                if (i == b.members.size())
+                    return;
+                Statement s = b.members.get(i);
+                // Semantics처럼 블록은 Return 문에서 끝난다
+                if (!(s instanceof Return))
+                    push(BLOCK, b, i + 1);
+                exec(s);
+            }
+            case LOOP -> {
+                if (!pop().boolValue())
+                    return;
+                Loop l = (Loop) node;
+                push(LOOP, l, 0);
+                push(EVAL, l.test, 0);
+                exec(l.body);
+            }
+            case BRANCH -> {
+                Conditional c = (Conditional) node;
+                exec(pop().boolValue() ? c.thenbranch : c.elsebranch);
+            }
+            case ASSIGN -> sigma.onion((Variable) node, pop());
+            case BINARY -> {
+                Value v2 = pop(), v1 = pop();
+                StaticTypeCheck.check(v1.isUndef() || v2.isUndef(), "reference to undef value");
+                value(((Operator) node).opcode.apply(v1, v2));
+            }
+            case UNARY -> {
+                Value v = pop();
+                StaticTypeCheck.check(v.isUndef(), "reference to undef value");
+                value(((Operator) node).opcode.apply(v));
+            }
+            case ARG -> sigma.push(pop());
+            case ENTER -> {
+                Function f = (Function) node;
+                if (lp == links.length)
+                    links = Arrays.copyOf(links, 2 * lp);
+                links[lp++] = sigma.dlink;
+                maxDepth = Math.max(maxDepth, lp);
+                int base = sigma.a - f.params.size();
+                sigma.allocate(f.locals.size() + 1);
+                sigma.dlink = base;
+                exec(f.body);
+            }
+            case LEAVE -> {
+                Function f = (Function) node;
+                value(sigma.mu.get(sigma.dlink + Resolver.frameSize(f) - 1));
+                sigma.deallocate(Resolver.frameSize(f));
+                sigma.dlink = links[--lp];
+            }
+            case DISCARD -> pop();
+            default -> throw new IllegalArgumentException("should never reach here");
+        }
+    }
+
+    // 문장 s를 실행하는 작업을 쌓는다
+    private void exec(Statement s) {
+        if (s instanceof Skip)
+            return;
+        if (s instanceof Assignment a) {
+            push(ASSIGN, a.target, 0);
+            push(EVAL, a.source, 0);
+        } else if (s instanceof Return r) {
+            push(ASSIGN, r.target, 0);
+            push(EVAL, r.result, 0);
+        } else if (s instanceof Block b)
+            push(BLOCK, b, 0);
+        else if (s instanceof Conditional c) {
+            push(BRANCH, c, 0);
+            push(EVAL, c.test, 0);
+        } else if (s instanceof Loop l) {
+            push(LOOP, l, 0);
+            push(EVAL, l.test, 0);
+        } else if (s instanceof Call c) {
+            push(DISCARD, null, 0);
+            call(c);
+        } else
+            throw new IllegalArgumentException("should never reach here");
+    }
+
+    // 식 e의 값을 바로 구하거나, 구하는 작업을 계산 순서의 역순으로 쌓는다
+    private void eval(Expression e, State sigma) {
+        if (e instanceof Value v)
+            value(v);
+        else if (e instanceof Variable v)
+            value(sigma.get(v));
+        else if (e instanceof Binary b) {
+            push(BINARY, b.op, 0);
+            push(EVAL, b.term2, 0);
+            push(EVAL, b.term1, 0);
+        } else if (e instanceof Unary u) {
+            push(UNARY, u.op, 0);
+            push(EVAL, u.term, 0);
+        } else if (e instanceof Call c)
+            call(c);
+        else
+            throw new IllegalArgumentException("should never reach here");
+    }
+
+    // 인수를 차례로 계산해 스택에 쌓고 (addFrame) 몸체를 실행한 뒤 프레임을 걷어낸다
+    private void call(Call c) {
+        Function f = c.target;
+        push(LEAVE, f, 0);
+        push(ENTER, f, 0);
+        for (int i = f.params.size() - 1; i >= 0; i--) {
+            push(ARG, null, 0);
+            push(EVAL, c.args.get(i), 0);
+        }
+    }
+
+    private void push(int op, Object node, int i) {
+        if (top == ops.length) {
+            ops = Arrays.copyOf(ops, 2 * top);
+            nodes = Arrays.copyOf(nodes, 2 * top);
+            ints = Arrays.copyOf(ints, 2 * top);
+        }
+        ops[top] = op;
+        nodes[top] = node;
+        ints[top] = i;
+        top++;
+    }
+
+    private void value(Value v) {
+        if (vp == values.length)
+            values = Arrays.copyOf(values, 2 * vp);
+        values[vp++] = v;
+    }
+
+    private Value pop() {
+        Value v = values[--vp];
+        values[vp] = null;
+        return v;
+    }
+
+    @Override
+    public String toString() {
+        return "trampoline: " + steps + " steps, call depth " + maxDepth;
+    }
+}
@@ -53,16 +53,16 @@ public class TypeTransformer {
             Expression t2 = T(b.term2, f, tm);
             if (typ1.equals(Type.FLOAT) || typ2.equals(Type.FLOAT)) {
                 if (typ1.equals(Type.INT))
-                    return new Binary(Operator.floatMap(b.op.val), new Unary(new Operator(Operator.I2F), t1), t2);
+                    return new Binary(Operator.floatMap(b.op.val), new Unary(Operator.of(Opcode.I2F), t1), t2);
                 else if (typ2.equals(Type.INT))
-                    return new Binary(Operator.floatMap(b.op.val), t1, new Unary(new Operator(Operator.I2F), t2));
+                    return new Binary(Operator.floatMap(b.op.val), t1, new Unary(Operator.of(Opcode.I2F), t2));
                 else
                     return new Binary(Operator.floatMap(b.op.val), t1, t2);
             } else if (typ1.equals(Type.INT) || typ2.equals(Type.INT)) {
                 if (typ1.equals(Type.CHAR))
-                    return new Binary(Operator.intMap(b.op.val), new Unary(new Operator(Operator.C2I), t1), t2);
+                    return new Binary(Operator.intMap(b.op.val), new Unary(Operator.of(Opcode.C2I), t1), t2);
                 else if (typ2.equals(Type.CHAR))
-                    return new Binary(Operator.intMap(b.op.val), t1, new Unary(new Operator(Operator.C2I), t2));
+                    return new Binary(Operator.intMap(b.op.val), t1, new Unary(Operator.of(Opcode.C2I), t2));
                 else
                     return new Binary(Operator.intMap(b.op.val), t1, t2);
             } else if (typ1.equals(Type.CHAR) || typ2.equals(Type.CHAR))
@@ -76,12 +76,12 @@ public class TypeTransformer {
             Expression term = T(u.term, f, tm);
             Operator op = u.op;
             if (u.op.toString().equals(Operator.NOT)) {
-                ;
+                op = Operator.of(Opcode.NOT);
             } else if (Operator.NEG.equals(u.op.toString())) {
                 if (typ1.equals(Type.INT))
-                    op = Operator.intMap(op.val);
+                    op = Operator.of(Opcode.INT_NEG);
                 else if (typ1.equals(Type.FLOAT))
-                    op = Operator.floatMap(op.val);
+                    op = Operator.of(Opcode.FLOAT_NEG);
             } else if (Operator.FLOAT.equals(u.op.toString()))
                 op = Operator.intMap(op.val);
             else if (Operator.CHAR.equals(u.op.toString()))
@@ -124,15 +124,15 @@ public class TypeTransformer {
             Type t = StaticTypeCheck.typeOf(u.term, tm);
             Expression exp = T(u.term, tm);
             if (t.equals(Type.BOOL))
-                return new Unary(Operator.boolMap(u.op.val), exp);
+                return new Unary(Operator.of(Opcode.NOT), exp);
             if (t.equals(Type.FLOAT)) {
                 if (u.op.val.equals(Operator.MINUS))
-                    return new Unary(new Operator(Operator.FLOAT_NEG), exp);
+                    return new Unary(Operator.of(Opcode.FLOAT_NEG), exp);
                 return new Unary(Operator.floatMap(u.op.val), exp);
             }
             if (t.equals(Type.INT)) {
                 if (u.op.val.equals(Operator.MINUS))
-                    return new Unary(new Operator(Operator.INT_NEG), exp);
+                    return new Unary(Operator.of(Opcode.INT_NEG), exp);
                 return new Unary(Operator.intMap(u.op.val), exp);
             }
             if (t.equals(Type.CHAR))
@@ -151,12 +151,12 @@ public class TypeTransformer {
             Type srctype = StaticTypeCheck.typeOf(a.source, f, tm);
             if (ttype.equals(Type.FLOAT)) {
                 if (srctype.equals(Type.INT)) {
-                    src = new Unary(new Operator(Operator.I2F), src);
+                    src = new Unary(Operator.of(Opcode.I2F), src);
                     srctype = Type.FLOAT;
                 }
             } else if (ttype.equals(Type.INT)) {
                 if (srctype.equals(Type.CHAR)) {
-                    src = new Unary(new Operator(Operator.C2I), src);
+                    src = new Unary(Operator.of(Opcode.C2I), src);
                     srctype = Type.INT;
                 }
             }
@@ -202,12 +202,12 @@ public class TypeTransformer {
             Type srctype = StaticTypeCheck.typeOf(a.source, tm);
             if (ttype.equals(Type.FLOAT)) {
                 if (srctype.equals(Type.INT)) {
-                    src = new Unary(new Operator(Operator.I2F), src);
+                    src = new Unary(Operator.of(Opcode.I2F), src);
                     srctype = Type.FLOAT;
                 }
             } else if (ttype.equals(Type.INT)) {
                 if (srctype.equals(Type.CHAR)) {
-                    src = new Unary(new Operator(Operator.C2I), src);
+                    src = new Unary(Operator.of(Opcode.C2I), src);
                     srctype = Type.INT;
                 }
             }
@@ -0,0 +1,154 @@
+// VM.java
+
+// Stack machine for the instructions produced by Bytecode.C.
+// Frames and operands share one long[] stack: a call leaves its
+// arguments on the stack and they become the first slots of the
+// callee's frame.  Return addresses and dynamic links are kept on
+// a separate int[] control stack, so no Java recursion is involved.
+// Both stacks start small and double on demand up to Memory.LIMIT.
+
+import java.util.Arrays;
+
+import static java.lang.Float.floatToRawIntBits;
+import static java.lang.Float.intBitsToFloat;
+
+public class VM {
+    long[] globals;
+    long[] stack = new long[Memory.SEGMENT];
+    int[] control = new int[Memory.SEGMENT];
+
+    State run(Bytecode b) {
+        globals = new long[b.globals.size()];
+        Arrays.fill(globals, Bytecode.UNDEF);
+        execute(b);
+        // 전역 상태를 State로 옮겨 Semantics와 같은 형식으로 출력
+        State sigma = new State();
+        sigma = sigma.allocate(b.globals);
+        for (int i = 0; i < globals.length; i++)
+            sigma.mu.set(i, Bytecode.value(globals[i], b.globals.get(i).t));
+        return sigma;
+    }
+
+    private static float f(long v) {
+        return intBitsToFloat((int) v);
+    }
+
+    private static long bits(float v) {
+        return floatToRawIntBits(v);
+    }
+
+    private static long bool(boolean v) {
+        return v ? 1 : 0;
+    }
+
+    private static long defined(long v) {
+        StaticTypeCheck.check(v != Bytecode.UNDEF, "reference to undef value");
+        return v;
+    }
+
+    private void execute(Bytecode b) {
+        final int[] code = b.code;
+        final long[] g = globals;
+        long[] s = stack;
+        int[] ctl = control;
+        int fp = 0;
+        int sp = enter(b, b.main, 0);
+        int cp = 0;
+        int pc = b.entry[b.main];
+        while (true) {
+            switch (code[pc++]) {
+                case Bytecode.CONST -> s[sp++] = code[pc++];
+                case Bytecode.CONST_UNDEF -> s[sp++] = Bytecode.UNDEF;
+                case Bytecode.LOAD_G -> s[sp++] = defined(g[code[pc++]]);
+                case Bytecode.LOAD_L -> s[sp++] = defined(s[fp + code[pc++]]);
+                case Bytecode.COPY_G -> s[sp++] = g[code[pc++]];
+                case Bytecode.COPY_L -> s[sp++] = s[fp + code[pc++]];
+                case Bytecode.STORE_G -> g[code[pc++]] = s[--sp];
+                case Bytecode.STORE_L -> s[fp + code[pc++]] = s[--sp];
+                case Bytecode.CHECK -> defined(s[sp - 1]);
+                case Bytecode.POP -> sp--;
+                case Bytecode.DEFAULT -> {
+                    if (s[sp - 1] == Bytecode.UNDEF)
+                        s[sp - 1] = code[pc];
+                    pc++;
+                }
+                case Bytecode.CHECK2 -> {
+                    StaticTypeCheck.check(s[sp - 1] != Bytecode.UNDEF || s[sp - 2] != Bytecode.UNDEF,
+                            "reference to undef value");
+                    if (s[sp - 1] == Bytecode.UNDEF)
+                        s[sp - 1] = code[pc];
+                    if (s[sp - 2] == Bytecode.UNDEF)
+                        s[sp - 2] = code[pc];
+                    pc++;
+                }
+                case Bytecode.AND -> { sp--; s[sp - 1] = s[sp - 1] & s[sp]; }
+                case Bytecode.OR -> { sp--; s[sp - 1] = s[sp - 1] | s[sp]; }
+                case Bytecode.INT_LT -> { sp--; s[sp - 1] = bool((int) s[sp - 1] < (int) s[sp]); }
+                case Bytecode.INT_LE -> { sp--; s[sp - 1] = bool((int) s[sp - 1] <= (int) s[sp]); }
+                case Bytecode.INT_EQ -> { sp--; s[sp - 1] = bool((int) s[sp - 1] == (int) s[sp]); }
+                case Bytecode.INT_NE -> { sp--; s[sp - 1] = bool((int) s[sp - 1] != (int) s[sp]); }
+                case Bytecode.INT_GT -> { sp--; s[sp - 1] = bool((int) s[sp - 1] > (int) s[sp]); }
+                case Bytecode.INT_GE -> { sp--; s[sp - 1] = bool((int) s[sp - 1] >= (int) s[sp]); }
+                case Bytecode.FLOAT_LT -> { sp--; s[sp - 1] = bool(f(s[sp - 1]) < f(s[sp])); }
+                case Bytecode.FLOAT_LE -> { sp--; s[sp - 1] = bool(f(s[sp - 1]) <= f(s[sp])); }
+                case Bytecode.FLOAT_EQ -> { sp--; s[sp - 1] = bool(f(s[sp - 1]) == f(s[sp])); }
+                case Bytecode.FLOAT_NE -> { sp--; s[sp - 1] = bool(f(s[sp - 1]) != f(s[sp])); }
+                case Bytecode.FLOAT_GT -> { sp--; s[sp - 1] = bool(f(s[sp - 1]) > f(s[sp])); }
+                case Bytecode.FLOAT_GE -> { sp--; s[sp - 1] = bool(f(s[sp - 1]) >= f(s[sp])); }
+                case Bytecode.INT_PLUS -> { sp--; s[sp - 1] = (int) s[sp - 1] + (int) s[sp]; }
+                case Bytecode.INT_MINUS -> { sp--; s[sp - 1] = (int) s[sp - 1] - (int) s[sp]; }
+                case Bytecode.INT_TIMES -> { sp--; s[sp - 1] = (int) s[sp - 1] * (int) s[sp]; }
+                case Bytecode.INT_DIV -> { sp--; s[sp - 1] = (int) s[sp - 1] / (int) s[sp]; }
+                case Bytecode.FLOAT_PLUS -> { sp--; s[sp - 1] = bits(f(s[sp - 1]) + f(s[sp])); }
+                case Bytecode.FLOAT_MINUS -> { sp--; s[sp - 1] = bits(f(s[sp - 1]) - f(s[sp])); }
+                case Bytecode.FLOAT_TIMES -> { sp--; s[sp - 1] = bits(f(s[sp - 1]) * f(s[sp])); }
+                case Bytecode.FLOAT_DIV -> { sp--; s[sp - 1] = bits(f(s[sp - 1]) / f(s[sp])); }
+                case Bytecode.NOT -> s[sp - 1] ^= 1;
+                case Bytecode.INT_NEG -> s[sp - 1] = -(int) s[sp - 1];
+                case Bytecode.FLOAT_NEG -> s[sp - 1] = bits(-f(s[sp - 1]));
+                case Bytecode.I2F -> s[sp - 1] = bits((float) (int) s[sp - 1]);
+                case Bytecode.F2I -> s[sp - 1] = (int) f(s[sp - 1]);
+                case Bytecode.I2C -> s[sp - 1] = (char) s[sp - 1];
+                case Bytecode.JUMP -> pc = code[pc];
+                case Bytecode.JUMPF -> pc = s[--sp] == 0 ? code[pc] : pc + 1;
+                case Bytecode.CALL -> {
+                    int callee = code[pc++];
+                    if (cp == ctl.length)
+                        ctl = control = Arrays.copyOf(ctl, grow(ctl.length));
+                    ctl[cp++] = pc;
+                    ctl[cp++] = fp;
+                    fp = sp - b.params[callee];
+                    sp = enter(b, callee, fp);
+                    s = stack;
+                    pc = b.entry[callee];
+                }
+                case Bytecode.RET -> {
+                    long result = s[fp + code[pc]];
+                    if (cp == 0)
+                        return;
+                    sp = fp;
+                    s[sp++] = result;
+                    fp = ctl[--cp];
+                    pc = ctl[--cp];
+                }
+                default -> throw new IllegalArgumentException("Unknown opcode " + code[pc - 1]);
+            }
+        }
+    }
+
+    // 지역변수와 반환 슬롯을 undef로 초기화하고 새 sp 반환
+    // 프레임과 피연산자가 들어갈 자리가 없으면 스택을 늘린다
+    private int enter(Bytecode b, int f, int fp) {
+        int top = fp + b.frameSize[f];
+        while (top + b.maxStack[f] > stack.length)
+            stack = Arrays.copyOf(stack, grow(stack.length));
+        Arrays.fill(stack, fp + b.params[f], top, Bytecode.UNDEF);
+        return top;
+    }
+
+    private static int grow(int length) {
+        if (length >= Memory.LIMIT)
+            throw new StackOverflowException(Memory.LIMIT);
+        return Math.min(2 * length, Memory.LIMIT);
+    }
+}
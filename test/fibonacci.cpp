@@ -0,0 +1,10 @@
+int answer;
+int fib (int n){
+   int r;
+   if (n < 2) r = n;
+   else r = fib(n - 1) + fib(n - 2);
+   return r;
+}
+int main () {
+   answer = fib(27);
+}
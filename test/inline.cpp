@@ -0,0 +1,47 @@
+int total, hits, u, w;
+float area;
+int sq (int x){
+   return x * x;
+}
+int pick (int x){
+   int r;
+   if (x > 0) r = x;
+   return r;
+}
+void count (int k){
+   hits = hits + k;
+}
+int clamp (int x, int lo, int hi){
+   if (x < lo) return lo;
+   if (x > hi) return hi;
+   return x;
+}
+float circle (float r){
+   float pi;
+   pi = 3.14159;
+   return pi * r * r;
+}
+int steps (int n){
+   int i, s;
+   i = 0; s = 0;
+   while (i < n) {
+      s = s + clamp(sq(i), 2, 50);
+      i = i + 1;
+   }
+   return s;
+}
+int main () {
+   int i, total;
+   i = 0; total = 0; hits = 0;
+   while (i < sq(12)) {
+      total = total + sq(i) + clamp(i, 10, 100);
+      count(1);
+      i = i + 1;
+   }
+   w = total;
+   u = pick(5);
+   u = pick(0 - 1);
+   area = circle(2.0);
+   total = steps(20);
+   if (sq(3) > 8) hits = hits + total;
+}
@@ -0,0 +1,41 @@
+int g, r, s, t, z;
+int f (int a, int b){
+   if (a <= 0) return b;
+   else return f(a - 1, b) + 1;
+}
+void bump (int d){
+   if (d > 0) {
+      g = g + 1;
+      bump(d - 1);
+   }
+}
+int main () {
+   int i, j, n, k, u, v, x;
+   n = f(1, 3); k = f(0, 3); i = 0; s = 0;
+   while (i < n * k) {
+      s = s + n * k + f(2, i);
+      i = i + 1;
+   }
+   j = 0; t = 0; g = 1;
+   while (j < 5) {
+      t = t + g * 2;
+      bump(1);
+      j = j + 1;
+   }
+   j = 0;
+   while (j < 5) {
+      t = t + g * 10;
+      j = j + 1;
+   }
+   j = 0;
+   while (j < f(0, 0)) {
+      z = u * v;
+      j = j + 1;
+   }
+   i = 0;
+   while (i < 3) {
+      x = f(2, 3);
+      i = i + 1;
+   }
+   r = i;
+}
@@ -0,0 +1,40 @@
+int big, neg, q, m, order, cnt;
+float f1, f2, f3, f4, f5, f6, f7, f8, f9, f10;
+char c1, c2;
+bool p;
+int tick (int n){
+   cnt = cnt * 10 + n;
+   return n;
+}
+int bump (int d){
+   order = order + d;
+   return order;
+}
+int main () {
+   int i;
+   big = 2147483647;
+   big = big + 1;
+   neg = 0 - big;
+   q = neg / (0 - 1);
+   m = 1000000 * 3000;
+   f1 = 0.1;
+   f2 = 12345678.0;
+   f3 = 1.0 / 3.0;
+   f4 = 0.001;
+   f5 = 100.0;
+   f6 = f2 * f2 * f2 * f2 * f2;
+   i = 0;
+   while (i < 20) {
+      f6 = f6 * f3;
+      i = i + 1;
+   }
+   f7 = 16777217.0 * 3.0;
+   f8 = 685380220.0;
+   f9 = f8 * f8 * 1000.0;
+   f10 = 1.0 / f9 / f9;
+   c1 = 'a';
+   c2 = char(int(c1) + 2);
+   cnt = 0;
+   order = 0;
+   p = tick(1) + tick(2) * tick(3) > order + bump(1) - bump(1);
+}
@@ -0,0 +1,34 @@
+int sum, steps, odd;
+float avg;
+char last;
+int collatz (int n){
+   int s;
+   s = 0;
+   while (n != 1) {
+      if (n / 2 * 2 == n) n = n / 2;
+      else n = 3 * n + 1;
+      s = s + 1;
+   }
+   return s;
+}
+int main () {
+   int i, k;
+   float total;
+   bool seen;
+   i = 1;
+   sum = 0; steps = 0; odd = 0;
+   total = 0.0;
+   while (i < 30000) {
+      k = collatz(i);
+      if (k > steps) steps = k;
+      sum = sum + i * i;
+      total = total + float(k);
+      if (i / 2 * 2 != i) {
+         odd = odd + 1;
+         seen = true;
+      }
+      i = i + 1;
+   }
+   avg = total / float(i - 1);
+   last = char(int('a') + steps / 100);
+}
@@ -0,0 +1,10 @@
+int total;
+int sum (int n){
+   int r;
+   r = 0;
+   if (n > 0) r = n + sum(n - 1);
+   return r;
+}
+int main () {
+   total = sum(30000);
+}
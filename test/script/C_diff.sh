@@ -0,0 +1,49 @@
+#!/bin/bash
+
+# Differential test for the C backend: translates every test program
+# with CSource, builds it with the C compiler, and compares the final
+# state it prints (or the error that ended the run) with the reference
+# tree-walking Semantics (-ast).
+# Usage: ./C_diff.sh [-O]   (CC overrides the compiler, default cc)
+
+# Define the relative path to the bin directory where CSource.class is located
+binDir="../../bin"
+cc="${CC:-cc}"
+work=$(mktemp -d)
+trap 'rm -rf "$work"' EXIT
+
+if [ ! -f "$binDir/CSource.class" ]; then
+    echo "Error: CSource.class not found in the '$binDir' directory."
+    exit 1
+fi
+
+# The last line of a run is the final state, or the message it stopped with
+expected() {
+    java -cp "$binDir" Semantics "$1" -ast 2>&1 | tail -1 | sed 's/^ *}//'
+}
+
+actual() {
+    if ! out=$(java -cp "$binDir" CSource "$1" "$work/prog.c" "$2" 2>&1); then
+        echo "$out" | tail -1
+    elif ! out=$("$cc" -std=c99 -O2 -ffp-contract=off -pthread -o "$work/prog" "$work/prog.c" -lm 2>&1); then
+        echo "cc failed: $(echo "$out" | head -1)"
+    else
+        "$work/prog" 2>&1 | tail -1
+    fi
+}
+
+failed=0
+for file in ../*.cpp; do
+    name=$(basename -- "$file")
+    expected=$(expected "$file")
+    actual=$(actual "$file" "$1")
+    if [ "$expected" == "$actual" ]; then
+        echo "PASS $name: $actual"
+    else
+        echo "FAIL $name: expected '$expected', got '$actual'"
+        failed=$((failed + 1))
+    fi
+done
+
+echo "Done, $failed failure(s)."
+[ "$failed" -eq 0 ]
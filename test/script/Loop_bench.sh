@@ -0,0 +1,53 @@
+#!/bin/bash
+
+# Runs a counting while loop for growing iteration counts and reports
+# wall time and peak resident memory of each run.  The JVM gets a small
+# thread stack and heap, so a loop that recurses or allocates per
+# iteration fails or grows here instead of staying flat.
+# Usage: ./Loop_bench.sh [engine]   (engine: -ast, -exec, -closure, -vm or -jit, default -ast)
+
+# Define the relative path to the bin directory where Semantics.class is located
+binDir="../../bin"
+engine="${1:--ast}"
+counts="1000 10000 100000 1000000"
+jvmOpts="-Xss256k -Xmx32m"
+
+if [ ! -f "$binDir/Semantics.class" ]; then
+    echo "Error: Semantics.class not found in the '$binDir' directory."
+    exit 1
+fi
+
+workDir=$(mktemp -d)
+trap 'rm -rf "$workDir"' EXIT
+
+printf "%-10s %-8s %10s %12s  %s\n" "iterations" "engine" "time(ms)" "peakRSS(kB)" "final state"
+for n in $counts; do
+    program="$workDir/loop$n.cpp"
+    cat > "$program" <<CLITE
+int i;
+float f;
+int main ( ) {
+    int n;
+    n = $n;
+    i = 0;
+    f = 0.0;
+    while (i < n) {
+        i = i + 1;
+        f = f + 0.5;
+    }
+}
+CLITE
+    start=$(date +%s%N)
+    java $jvmOpts -cp "$binDir" Semantics "$program" "$engine" > "$workDir/out.txt" 2>&1 &
+    pid=$!
+    # VmHWM is the high-water mark of resident memory, sample it until exit
+    peak=0
+    while kill -0 "$pid" 2>/dev/null; do
+        hwm=$(awk '/VmHWM/ {print $2}' "/proc/$pid/status" 2>/dev/null)
+        [ -n "$hwm" ] && [ "$hwm" -gt "$peak" ] && peak=$hwm
+        sleep 0.02
+    done
+    wait "$pid"
+    end=$(date +%s%N)
+    printf "%-10s %-8s %10d %12s  %s\n" "$n" "$engine" $(((end - start) / 1000000)) "$peak" "$(tail -1 "$workDir/out.txt")"
+done
@@ -0,0 +1,39 @@
+#!/bin/bash
+
+# Differential test: runs every test program with the reference
+# tree-walking Semantics (-ast) and with each other engine, and compares
+# the final state (or the error that ended the run).
+# Usage: ./Semantics_diff.sh [engine ...]   (default: -exec -closure -vm -jit -heap -exec,-tier -ast,-O -ast,-ssa)
+# Options of one run are joined with commas, e.g. -jit,-O
+
+# Define the relative path to the bin directory where Semantics.class is located
+binDir="../../bin"
+engines="${*:--exec -closure -vm -jit -heap -exec,-tier -ast,-O -ast,-ssa}"
+
+if [ ! -f "$binDir/Semantics.class" ]; then
+    echo "Error: Semantics.class not found in the '$binDir' directory."
+    exit 1
+fi
+
+# The last line of a run is the final state, or the message it stopped with
+result() {
+    java -cp "$binDir" Semantics "$1" ${2//,/ } 2>&1 | tail -1 | sed 's/^ *}//'
+}
+
+failed=0
+for file in ../*.cpp; do
+    name=$(basename -- "$file")
+    expected=$(result "$file" -ast)
+    for engine in $engines; do
+        actual=$(result "$file" "$engine")
+        if [ "$expected" == "$actual" ]; then
+            echo "PASS $engine $name: $actual"
+        else
+            echo "FAIL $engine $name: expected '$expected', got '$actual'"
+            failed=$((failed + 1))
+        fi
+    done
+done
+
+echo "Done, $failed failure(s)."
+[ "$failed" -eq 0 ]
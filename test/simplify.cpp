@@ -0,0 +1,35 @@
+int a, b, c, d, n, k;
+float x, y, z, f;
+bool p, q, t;
+char ch;
+int main () {
+   int i;
+   float h;
+   bool s;
+   char e;
+   h = 2.5; s = true; e = 'r';
+   k = 7; f = 1.5; t = true; ch = 'q';
+   i = 0; a = 0; d = 0; n = 0; x = 0.0;
+   while (i < 100) {
+      a = a + i * 2 + (k + 3) * 1 - 0;
+      b = 0 - i + i / 1 + (i + 1 + 2) + i * 1 * 3;
+      c = i / (0 - 1) + 2 * k * 1;
+      x = x + f * 2.0 - f / 4.0 + f * 1.0 - 0.0;
+      y = 0.0 - 0.0;
+      z = f / 0.5 + f * (0.0 - 1.0) + 1.0 * f / 3.0;
+      p = !(!t) && true;
+      q = !(i < k) || false;
+      if (t == false) n = n + 1;
+      if (t != true) n = n + 100;
+      if (!(ch == 'a')) d = d + 1;
+      if (int(ch) > int('c')) n = n + 2;
+      ch = char(int(ch));
+      z = z + h * 2.0 + 1.0 * h - h * 1.0;
+      p = p || !(!s) && true;
+      if (s == false) n = n + 1;
+      if (s != true) n = n + 100;
+      if (int(e) > int(ch)) d = d + 3;
+      e = char(int(e));
+      i = i + 1;
+   }
+}
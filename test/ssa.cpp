@@ -0,0 +1,24 @@
+int g, h, r;
+int lim (int n){
+   g = g + 1;
+   return n;
+}
+int f (int x){
+   int i;
+   i = 0;
+   while (i < x) {
+      if (i == 3) return i * 100;
+      { i = i + 2; return 7; i = 1000; }
+   }
+   return i;
+}
+int main () {
+   int a, b, t, i;
+   g = 0; a = 1; b = 2; i = 0;
+   while (i < lim(5)) {
+      t = a; a = b; b = t + a;
+      i = i + 1;
+   }
+   h = a * 1000 + b;
+   r = f(6) + f(3);
+}
@@ -0,0 +1,43 @@
+int total, count, g, fact, hops, last;
+float harmonic;
+int sum (int n, int acc){
+   if (n == 0) return acc;
+   else return sum(n - 1, acc + n);
+}
+int gcd (int x, int y){
+   int z;
+   if (y == 0) return x;
+   else {
+      z = x - x / y * y;
+      return gcd(y, z);
+   }
+}
+float harm (int n, float acc){
+   if (n == 0) return acc;
+   else return harm(n - 1, acc + 1.0 / float(n));
+}
+void countdown (int n){
+   count = count + 1;
+   if (n > 0) countdown(n - 1);
+}
+int factorial (int n){
+   if (n < 2) return 1;
+   else return n * factorial(n - 1);
+}
+int hop (int n, int k){
+   int t;
+   last = t;
+   t = n;
+   if (n == 0) return k;
+   else return hop(n - 1, k + t);
+}
+int main () {
+   total = sum(50000, 0);
+   g = gcd(1071, 462);
+   harmonic = harm(1000, 0.0);
+   count = 0;
+   countdown(20000);
+   fact = factorial(10);
+   last = 7;
+   hops = hop(5, 0);
+}
@@ -0,0 +1,7 @@
+int r, s;
+int main () {
+   int x, y;
+   r = 1;
+   s = x + y;
+   r = 2;
+}
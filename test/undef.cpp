@@ -0,0 +1,29 @@
+int r, s, t, n, m, k, d, w, v;
+bool p, q;
+float y;
+int get (int a){
+   int v;
+   if (a > 0) v = a;
+   return v;
+}
+int main () {
+   int x, i;
+   bool b;
+   char c;
+   float f;
+   r = x + 1;
+   s = 2 * x;
+   t = x * 2;
+   v = (0 - x) + x * 1;
+   if (b) n = 1; else n = 2;
+   i = 0;
+   while (b) i = i + 1;
+   m = i;
+   p = c < 'a';
+   q = b || 3 > 2;
+   y = f * 2.0 + 1.5;
+   k = get(0) + 5;
+   d = get(0) - get(4);
+   w = x + get(3);
+   if (get(0) < 1) k = k + 10;
+}